@@ -0,0 +1,90 @@
+package nodecore.miners.pow.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files and fails if any benchmark regressed by more than the tolerance.
+ *
+ * Usage: BaselineComparison baseline.json current.json [tolerancePercent]
+ */
+public class BaselineComparison {
+    public static void main(String... args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BaselineComparison <baseline.json> <current.json> [tolerancePercent]");
+            System.exit(2);
+        }
+
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonObject> baseline = load(args[0]);
+        Map<String, JsonObject> current = load(args[1]);
+
+        int regressions = 0;
+        System.out.println(String.format("%-70s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+        for (Map.Entry<String, JsonObject> entry : current.entrySet()) {
+            JsonObject before = baseline.get(entry.getKey());
+            JsonObject metric = entry.getValue().getAsJsonObject("primaryMetric");
+            double score = metric.get("score").getAsDouble();
+            String unit = metric.get("scoreUnit").getAsString();
+
+            if (before == null) {
+                System.out.println(String.format("%-70s %14s %14.3f %9s  %s", entry.getKey(), "-", score, "new", unit));
+                continue;
+            }
+
+            double baseScore = before.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+
+            // Throughput is better when higher; every other mode reports time per operation
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().get("mode").getAsString());
+            double change = (score - baseScore) / baseScore * 100.0;
+            double improvement = higherIsBetter ? change : -change;
+
+            String flag = "";
+            if (improvement < -tolerance) {
+                flag = "  REGRESSION";
+                regressions++;
+            }
+            System.out.println(String.format("%-70s %14.3f %14.3f %+8.1f%%  %s%s",
+                    entry.getKey(), baseScore, score, change, unit, flag));
+        }
+
+        if (regressions > 0) {
+            System.out.println(String.format("%d benchmark(s) regressed by more than %.1f%%", regressions, tolerance));
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonObject> load(String path) throws IOException {
+        Map<String, JsonObject> results = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            JsonArray runs = new JsonParser().parse(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                results.put(key(run), run);
+            }
+        }
+        return results;
+    }
+
+    private static String key(JsonObject run) {
+        StringBuilder key = new StringBuilder(run.get("benchmark").getAsString()
+                .replace("nodecore.miners.pow.benchmarks.", ""));
+        if (run.has("params")) {
+            for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().getAsString());
+            }
+        }
+        key.append(" [").append(run.get("threads").getAsInt()).append("t]");
+        return key.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package nodecore.miners.pow.benchmarks;
+
+import nodecore.miners.pow.stratum.StratumJob;
+
+/**
+ * Fixed job data so every benchmark run hashes the same headers.
+ */
+public final class BenchmarkJobs {
+    public static final int TIMESTAMP = 1546300800;
+    public static final long EXTRA_NONCE = 0x0102030405060708L;
+
+    private BenchmarkJobs() { }
+
+    public static StratumJob fixedJob() {
+        return new StratumJob(
+                "1",
+                1000000,
+                (short) 1,
+                "00000000000A2B7F4C81D0E3",
+                "0000005E62C06F3A82",
+                "00000071AD3D0B9E14",
+                new String[] {
+                        "5A37A59FE1F8C4C4B0D11D60AAB37AA8B5B7E1D3C4A9C6C4D0A2F1B6E3C9A8D7",
+                        "0E52C5EF4D5F04F0B3E3F2A1D9C8B7A6958473625140F1E2D3C4B5A697887766",
+                        "C0FFEE00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC"
+                },
+                TIMESTAMP,
+                0x05F5E100);
+    }
+}
@@ -0,0 +1,163 @@
+package nodecore.miners.pow.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import nodecore.miners.pow.stratum.StratumJob;
+import nodecore.miners.pow.stratum.StratumMessageDecoder;
+import nodecore.miners.pow.stratum.StratumResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding one incoming Stratum line, comparing {@link StratumMessageDecoder} against the Gson
+ * tree parsing the client used before. {@code burst} decodes a pool burst of notifications and submit
+ * acknowledgements laid out back to back, as they arrive in the receive buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecoderBenchmark {
+    private static final int BURST_SIZE = 64;
+
+    private static final String NOTIFY = "{\"id\":null,\"method\":\"mining.notify\",\"params\":[\"1a2b\",\"000f4240\",\"0001\","
+            + "\"00000000000A2B7F4C81D0E3\",\"0000005E62C06F3A82\",\"00000071AD3D0B9E14\","
+            + "[\"5A37A59FE1F8C4C4B0D11D60AAB37AA8B5B7E1D3C4A9C6C4D0A2F1B6E3C9A8D7\","
+            + "\"0E52C5EF4D5F04F0B3E3F2A1D9C8B7A6958473625140F1E2D3C4B5A697887766\","
+            + "\"C0FFEE00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC\"],"
+            + "\"5c2a5100\",\"05f5e100\",true]}";
+    private static final String SET_DIFFICULTY = "{\"id\":null,\"method\":\"mining.set_difficulty\",\"params\":[\"1000000\"]}";
+    private static final String SUBMIT_RESPONSE = "{\"id\":4711,\"result\":true,\"error\":null}";
+
+    @State(Scope.Thread)
+    public static class Line {
+        @Param({"notify", "set_difficulty", "submit_response"})
+        public String message;
+
+        private ByteBuffer frame;
+
+        @Setup
+        public void setup() {
+            switch (message) {
+                case "notify": frame = toDirectBuffer(NOTIFY); break;
+                case "set_difficulty": frame = toDirectBuffer(SET_DIFFICULTY); break;
+                default: frame = toDirectBuffer(SUBMIT_RESPONSE);
+            }
+        }
+    }
+
+    private ByteBuffer burst;
+    private int[] burstLimits;
+
+    private StratumMessageDecoder decoder;
+    private Blackhole blackhole;
+    private JsonParser parser;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        this.parser = new JsonParser();
+        this.decoder = new StratumMessageDecoder(new StratumMessageDecoder.Handler() {
+            @Override
+            public void onNotify(StratumJob job, boolean cleanJobs) {
+                DecoderBenchmark.this.blackhole.consume(job);
+            }
+
+            @Override
+            public void onSetDifficulty(BigInteger difficulty) {
+                DecoderBenchmark.this.blackhole.consume(difficulty);
+            }
+
+            @Override
+            public void onResponse(StratumResponse response) {
+                DecoderBenchmark.this.blackhole.consume(response.id);
+            }
+        });
+
+        // One notify per eight lines, the rest submit acknowledgements, as seen at low share difficulty
+        StringBuilder lines = new StringBuilder();
+        burstLimits = new int[BURST_SIZE];
+        for (int i = 0; i < BURST_SIZE; i++) {
+            lines.append(i % 8 == 0 ? NOTIFY : SUBMIT_RESPONSE);
+            burstLimits[i] = lines.toString().getBytes(StandardCharsets.UTF_8).length;
+        }
+        burst = toDirectBuffer(lines.toString());
+    }
+
+    private static ByteBuffer toDirectBuffer(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
+    @Benchmark
+    public void decode(Line line) {
+        decoder.decode(line.frame);
+    }
+
+    @Benchmark
+    public void gsonTree(Line line) {
+        gsonDecode(line.frame);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public void burst() {
+        int start = 0;
+        for (int limit : burstLimits) {
+            burst.limit(limit).position(start);
+            decoder.decode(burst);
+            start = limit;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public void burstGsonTree() {
+        int start = 0;
+        for (int limit : burstLimits) {
+            burst.limit(limit).position(start);
+            gsonDecode(burst);
+            start = limit;
+        }
+    }
+
+    /**
+     * The decoding the client did before the streaming decoder: a string per line, a full tree, and a
+     * second parse for responses.
+     */
+    private void gsonDecode(ByteBuffer frame) {
+        String line = StandardCharsets.UTF_8.decode(frame.duplicate()).toString();
+        JsonObject json = parser.parse(line).getAsJsonObject();
+        if (json.has("method")) {
+            JsonArray params = json.getAsJsonArray("params");
+            String method = json.get("method").getAsString();
+            if (method.equals("mining.notify")) {
+                JsonArray merkles = params.get(6).getAsJsonArray();
+                blackhole.consume(new StratumJob(
+                        params.get(0).getAsString(),
+                        Integer.parseInt(params.get(1).getAsString(), 16),
+                        Short.parseShort(params.get(2).getAsString(), 16),
+                        params.get(3).getAsString(),
+                        params.get(4).getAsString(),
+                        params.get(5).getAsString(),
+                        new String[] { merkles.get(0).getAsString(), merkles.get(1).getAsString(), merkles.get(2).getAsString() },
+                        Integer.parseInt(params.get(7).getAsString(), 16),
+                        Integer.parseInt(params.get(8).getAsString(), 16)));
+            } else if (method.equals("mining.set_difficulty")) {
+                blackhole.consume(new BigInteger(params.get(0).getAsString()));
+            }
+        } else if (json.has("result")) {
+            blackhole.consume(parser.parse(line).getAsJsonObject().get("id").getAsString());
+        }
+    }
+}
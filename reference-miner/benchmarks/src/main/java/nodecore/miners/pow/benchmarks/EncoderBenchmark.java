@@ -0,0 +1,90 @@
+package nodecore.miners.pow.benchmarks;
+
+import com.google.gson.Gson;
+import nodecore.miners.pow.Utility;
+import nodecore.miners.pow.stratum.StratumMessageEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing {@code mining.submit} requests, comparing {@link StratumMessageEncoder} against the
+ * Gson serialization of hex strings the client used before. {@code submit} is the encoding alone;
+ * the batch benchmarks write {@link #BATCH_SIZE} shares and take them out as one frame, as the client
+ * does, so they include each share's part of the frame. Run with {@code -prof gc} to see the bytes
+ * allocated per submit ({@code gc.alloc.rate.norm}); a submit line for a 30-character username and a
+ * five-digit request id is 132 bytes on the wire either way.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncoderBenchmark {
+    private static final int BATCH_SIZE = 64;
+    private static final String USERNAME = "V5Ujv72h4jEBcKnALGc4fKqs6CDAPX";
+    private static final String JOB_ID = "1a2b";
+
+    private StratumMessageEncoder encoder;
+    private Gson serializer;
+    private int requestId;
+    private long extraNonce;
+    private int nonce;
+
+    @Setup
+    public void setup() {
+        encoder = new StratumMessageEncoder(USERNAME);
+        serializer = new Gson();
+        extraNonce = 0x0000010000000000L;
+        requestId = 1;
+    }
+
+    @Benchmark
+    public int submit() {
+        encoder.submit(requestId++, JOB_ID, extraNonce, 0x5c2aad90, nonce++);
+        int size = encoder.size();
+        encoder.clear();
+        return size;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ByteBuffer batch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            encoder.submit(requestId++, JOB_ID, extraNonce, 0x5c2aad90, nonce++);
+        }
+        return encoder.takeFrame();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ByteBuffer batchGson() {
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Request request = new Request();
+            request.id = Integer.toString(requestId++);
+            request.method = "mining.submit";
+            request.params = new String[] {
+                    USERNAME,
+                    JOB_ID,
+                    Utility.bytesToHex(Utility.longToByteArray(extraNonce)),
+                    Utility.bytesToHex(Utility.intToByteArray(0x5c2aad90)),
+                    Utility.bytesToHex(Utility.intToByteArray(nonce++))
+            };
+            batch.append(serializer.toJson(request)).append('\n');
+        }
+        return ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The request object the client serialized with Gson before.
+     */
+    private static class Request {
+        public String method;
+        public String[] params;
+        public String id;
+    }
+}
@@ -0,0 +1,33 @@
+package nodecore.miners.pow.benchmarks;
+
+import nodecore.miners.pow.stratum.PreparedHeader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes per second per thread on the mining path; run with -t N to see how it scales across cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashRateBenchmark {
+    private PreparedHeader prepared;
+    private final long[] v = new long[16];
+    private final long[] h = new long[3];
+    private int nonce;
+
+    @Setup
+    public void setup() {
+        prepared = new PreparedHeader(BenchmarkJobs.fixedJob(), BenchmarkJobs.TIMESTAMP, BenchmarkJobs.EXTRA_NONCE);
+    }
+
+    @Benchmark
+    public long[] hashesPerSecond() {
+        prepared.hash(nonce++, v, h);
+        return h;
+    }
+}
@@ -0,0 +1,56 @@
+package nodecore.miners.pow.benchmarks;
+
+import nodecore.miners.pow.stratum.MerkleRootCalculator;
+import nodecore.miners.pow.stratum.PreparedHeader;
+import nodecore.miners.pow.stratum.StratumJob;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding a job and of deriving fresh work for a new extra-nonce.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeaderBenchmark {
+    private StratumJob job;
+    private long extraNonce = BenchmarkJobs.EXTRA_NONCE;
+    private final MerkleRootCalculator calculator = new MerkleRootCalculator();
+    private final byte[] header = new byte[StratumJob.HEADER_SIZE];
+
+    @Setup
+    public void setup() {
+        job = BenchmarkJobs.fixedJob();
+    }
+
+    @Benchmark
+    public byte[] calculateMerkleRoot() {
+        return job.calculateMerkleRoot(extraNonce++);
+    }
+
+    @Benchmark
+    public byte[] writeHeader() {
+        job.writeHeader(BenchmarkJobs.TIMESTAMP, extraNonce++, calculator, header);
+        return header;
+    }
+
+    @Benchmark
+    public ByteBuffer constructPrototype() {
+        return job.constructPrototype(BenchmarkJobs.TIMESTAMP, extraNonce++);
+    }
+
+    @Benchmark
+    public PreparedHeader prepareHeader() {
+        return new PreparedHeader(job, BenchmarkJobs.TIMESTAMP, extraNonce++, calculator);
+    }
+
+    @Benchmark
+    public StratumJob decodeJob() {
+        return BenchmarkJobs.fixedJob();
+    }
+}
@@ -0,0 +1,65 @@
+package nodecore.miners.pow.benchmarks;
+
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.stratum.PreparedHeader;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end scan of a fixed nonce range against a fixed job, as the mining loop does it: prepare the
+ * header, hash each nonce and check it against the share target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NonceScanBenchmark {
+    @Param({"100000"})
+    public int nonces;
+
+    @Param({"1000"})
+    public long difficulty;
+
+    private HashTarget target;
+    private final long[] v = new long[16];
+    private final long[] h = new long[3];
+    private final int[] found = new int[16];
+
+    @Setup
+    public void setup() {
+        target = HashTarget.fromDifficulty(BigInteger.valueOf(difficulty));
+    }
+
+    @Benchmark
+    public int scan() {
+        PreparedHeader work = new PreparedHeader(BenchmarkJobs.fixedJob(), BenchmarkJobs.TIMESTAMP, BenchmarkJobs.EXTRA_NONCE);
+
+        int shares = 0;
+        for (int nonce = 0; nonce < nonces; nonce++) {
+            work.hash(nonce, v, h);
+            if (target.isMetBy(h)) {
+                shares++;
+            }
+        }
+        return shares;
+    }
+
+    @Benchmark
+    public int scanBatched() {
+        PreparedHeader work = new PreparedHeader(BenchmarkJobs.fixedJob(), BenchmarkJobs.TIMESTAMP, BenchmarkJobs.EXTRA_NONCE);
+
+        int shares = 0;
+        int nonce = 0;
+        while (nonce < nonces) {
+            int count = Math.min(1024, nonces - nonce);
+            int hits = work.hashBatch(nonce, count, target, found, v, h);
+            shares += hits;
+            nonce += hits == found.length ? found[hits - 1] + 1 : count;
+        }
+        return shares;
+    }
+}
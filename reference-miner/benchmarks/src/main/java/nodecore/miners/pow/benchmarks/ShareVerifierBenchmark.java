@@ -0,0 +1,58 @@
+package nodecore.miners.pow.benchmarks;
+
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.stratum.StratumJob;
+import nodecore.miners.pow.verifier.ShareVerifier;
+import nodecore.miners.pow.verifier.Submission;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of batch share verification: rebuilding, hashing and checking every share of a batch,
+ * on one thread and across the common fork-join pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShareVerifierBenchmark {
+    private static final int BATCH = 4096;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private ShareVerifier verifier;
+    private StratumJob job;
+    private final List<Submission> batch = new ArrayList<>(BATCH);
+    private int nonce;
+
+    @Setup
+    public void setup() {
+        verifier = new ShareVerifier(parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool());
+        job = BenchmarkJobs.fixedJob();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        // A clean job each time, so no share is a duplicate of an earlier batch
+        verifier.addJob(job, HashTarget.MAX_TARGET.shiftRight(64), true);
+        batch.clear();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(new Submission(job.jobId, BenchmarkJobs.EXTRA_NONCE, BenchmarkJobs.TIMESTAMP, nonce++, BigInteger.ONE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Submission> verifyBatch() {
+        verifier.verify(batch);
+        return batch;
+    }
+}
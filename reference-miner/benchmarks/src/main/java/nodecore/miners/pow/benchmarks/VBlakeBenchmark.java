@@ -0,0 +1,52 @@
+package nodecore.miners.pow.benchmarks;
+
+import nodecore.miners.pow.VBlake;
+import nodecore.miners.pow.VBlakeHasher;
+import nodecore.miners.pow.stratum.PreparedHeader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single vBlake hash through each of the available entry points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VBlakeBenchmark {
+    private byte[] header;
+    private final byte[] output = new byte[VBlakeHasher.HASH_SIZE];
+    private final VBlakeHasher hasher = new VBlakeHasher();
+
+    private PreparedHeader prepared;
+    private final long[] v = new long[16];
+    private final long[] h = new long[3];
+    private int nonce;
+
+    @Setup
+    public void setup() {
+        prepared = new PreparedHeader(BenchmarkJobs.fixedJob(), BenchmarkJobs.TIMESTAMP, BenchmarkJobs.EXTRA_NONCE);
+        header = prepared.toHeader(0);
+    }
+
+    @Benchmark
+    public byte[] legacyHash() {
+        return VBlake.hash(header);
+    }
+
+    @Benchmark
+    public byte[] hasher() {
+        header[63] = (byte) nonce++;
+        hasher.hash(header, 0, output, 0);
+        return output;
+    }
+
+    @Benchmark
+    public long[] preparedHeader() {
+        prepared.hash(nonce++, v, h);
+        return h;
+    }
+}
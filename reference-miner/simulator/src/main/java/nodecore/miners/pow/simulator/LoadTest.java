@@ -0,0 +1,195 @@
+package nodecore.miners.pow.simulator;
+
+import com.google.gson.GsonBuilder;
+import nodecore.miners.pow.cpu.CpuTopology;
+import nodecore.miners.pow.cpu.WorkerScheduler;
+import nodecore.miners.pow.metrics.LatencyHistogram;
+import nodecore.miners.pow.metrics.MinerMetrics;
+import nodecore.miners.pow.stratum.BlockingStratumTransport;
+import nodecore.miners.pow.stratum.JobManager;
+import nodecore.miners.pow.stratum.NioEventLoop;
+import nodecore.miners.pow.stratum.NioStratumTransport;
+import nodecore.miners.pow.stratum.PoolConnection;
+import nodecore.miners.pow.stratum.StratumTransport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the miner in-process against a {@link SimulatedPool}, pushes jobs at it and reports how quickly
+ * the mining threads switched to each job, how many shares went stale and the submit round trip.
+ *
+ * Usage: LoadTest [--jobs 1000] [--rate 50] [--burst 1] [--clean-every 1] [--threads n]
+ *                 [--difficulty 50000] [--io nio|virtual] [--rolling false] [--share-rate 0]
+ *                 [--min-difficulty 0] [--out results.json]
+ *                 [--max-stale-percent p] [--max-switch-millis ms] [--min-hashrate h]
+ *
+ * Jobs are sent in bursts of {@code burst} back to back, at {@code rate} jobs per second on average,
+ * and every {@code clean-every}-th job is clean. {@code share-rate} and {@code min-difficulty} set up
+ * the miner's share-rate controller and local difficulty floor, as in app.properties. Exits with 1 if
+ * any share failed verification or a limit was exceeded, so a run can gate a build.
+ */
+public class LoadTest {
+    private static final String USERNAME = "V5LoadTest";
+    private static final long FIRST_HASH_TIMEOUT_MILLIS = 30 * 1000;
+    // Time left after the last job for outstanding shares to be answered
+    private static final long DRAIN_MILLIS = 2000;
+
+    public static void main(String... args) throws Exception {
+        Options options = new Options(args, new HashSet<>(Arrays.asList("jobs", "rate", "burst", "clean-every", "threads",
+                "difficulty", "io", "rolling", "share-rate", "min-difficulty", "out", "max-stale-percent", "max-switch-millis", "min-hashrate")));
+        int jobs = options.getInt("jobs", 1000);
+        double rate = options.getDouble("rate", 50);
+        int burst = Math.max(1, options.getInt("burst", 1));
+        int cleanEvery = options.getInt("clean-every", 1);
+        BigInteger difficulty = new BigInteger(options.getString("difficulty", SimulatedPool.DEFAULT_DIFFICULTY.toString()));
+        boolean virtualThreadIo = options.getString("io", "nio").equalsIgnoreCase("virtual");
+        WorkerScheduler scheduler = new WorkerScheduler(CpuTopology.detect(), false, false);
+        int threads = options.getInt("threads", scheduler.defaultWorkerCount());
+
+        SimulatedPool pool = new SimulatedPool(0, difficulty);
+        pool.pushJob(true);
+        pool.start();
+
+        NioEventLoop loop = new NioEventLoop("stratum-io");
+        loop.start();
+        StratumTransport.Factory transports = virtualThreadIo
+                ? address -> new BlockingStratumTransport(loop, address)
+                : address -> new NioStratumTransport(loop, address);
+
+        MinerMetrics metrics = new MinerMetrics();
+        JobManager manager = new JobManager(loop, metrics, Boolean.parseBoolean(options.getString("rolling", "false")));
+        PoolConnection connection = new PoolConnection("simulated", pool.getAddress(), USERNAME, loop, transports, metrics);
+        connection.setShareRate(options.getDouble("share-rate", 0));
+        connection.setMinimumDifficulty(new BigInteger(options.getString("min-difficulty", "0")));
+        manager.addAccount("load-test", 1, Collections.singletonList(connection));
+        manager.setWorkerScheduler(scheduler);
+        manager.start(threads);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FIRST_HASH_TIMEOUT_MILLIS);
+        while (metrics.getFirstHashLatency().getCount() == 0) {
+            if (System.nanoTime() > deadline) {
+                System.out.println("The miner did not start hashing within " + FIRST_HASH_TIMEOUT_MILLIS + " ms");
+                System.exit(1);
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        System.out.println(String.format("Pushing %1$s jobs at %2$s per second in bursts of %3$s to %4$s thread(s), difficulty %5$s",
+                jobs, rate, burst, threads, difficulty));
+        long started = System.nanoTime();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (int pushed = 0; pushed < jobs; ) {
+            for (int i = 0; i < burst && pushed < jobs; i++) {
+                pushed++;
+                pool.pushJob(cleanEvery > 0 && pushed % cleanEvery == 0);
+            }
+
+            long next = started + (long) (pushed * intervalNanos);
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        TimeUnit.MILLISECONDS.sleep(DRAIN_MILLIS);
+
+        manager.shutdown();
+        loop.shutdown();
+        pool.close();
+
+        Map<String, Object> results = report(pool, metrics, jobs, seconds);
+        if (options.has("out")) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(options.getString("out", null)), StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(results, out);
+            } catch (IOException e) {
+                System.out.println("Unable to write " + options.getString("out", null) + ": " + e.getMessage());
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        if (pool.getInvalid() > 0 || pool.getMalformed() > 0) {
+            failures.add((pool.getInvalid() + pool.getMalformed()) + " share(s) failed verification");
+        }
+        double stalePercent = (Double) results.get("stalePercent");
+        if (options.has("max-stale-percent") && stalePercent > options.getDouble("max-stale-percent", 0)) {
+            failures.add(String.format("%.2f%% of shares were stale", stalePercent));
+        }
+        double switchMillis = (Double) results.get("jobSwitchP99Millis");
+        if (options.has("max-switch-millis") && switchMillis > options.getDouble("max-switch-millis", 0)) {
+            failures.add(String.format("99th percentile job switch took %.2f ms", switchMillis));
+        }
+        double hashRate = (Double) results.get("verifiedHashRate");
+        if (options.has("min-hashrate") && hashRate < options.getDouble("min-hashrate", 0)) {
+            failures.add(String.format("verified hash rate was %.0f H/s", hashRate));
+        }
+
+        for (String failure : failures) {
+            System.out.println("FAILED: " + failure);
+        }
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    private static Map<String, Object> report(SimulatedPool pool, MinerMetrics metrics, int jobs, double seconds) {
+        LatencyHistogram switches = metrics.getJobSwitchLatency();
+        LatencyHistogram submits = metrics.getSubmitLatency();
+        LatencyHistogram firstShares = pool.getFirstShareLatency();
+        long submitted = pool.getSubmitted();
+        double stalePercent = submitted == 0 ? 0 : 100.0 * pool.getStale() / submitted;
+        // Every hash meets the target with probability 1 / difficulty
+        double verifiedHashRate = pool.getAcceptedWork() / seconds;
+
+        System.out.println(String.format("%-22s %s in %.1f s (%.1f per second)", "Jobs", jobs, seconds, jobs / seconds));
+        System.out.println(String.format("%-22s %s measured, %s", "Job switch", switches.getCount(), describe(switches)));
+        System.out.println(String.format("%-22s %s measured, %s", "Notify to first share", firstShares.getCount(), describe(firstShares)));
+        System.out.println(String.format("%-22s %s, %s", "Submit round trip", submits.getCount(), describe(submits)));
+        System.out.println(String.format("%-22s %s found, %s accepted, %s stale (%.2f%%), %s duplicate, %s invalid",
+                "Shares", metrics.getTotals().getFound(), pool.getAccepted(), pool.getStale(), stalePercent,
+                pool.getDuplicate(), pool.getInvalid() + pool.getMalformed()));
+        System.out.println(String.format("%-22s %s stale, %s duplicate", "Not sent",
+                metrics.getTotals().getDroppedStale(), metrics.getTotals().getDroppedDuplicate()));
+        System.out.println(String.format("%-22s %.1f accepted per minute, %s difficulty suggestion(s)", "Share rate",
+                pool.getAccepted() * 60 / seconds, pool.getSuggestions()));
+        System.out.println(String.format("%-22s %.0f H/s verified by the pool", "Hash rate", verifiedHashRate));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("jobs", jobs);
+        results.put("seconds", seconds);
+        results.put("jobSwitches", switches.getCount());
+        results.put("jobSwitchMeanMillis", switches.getMeanMillis());
+        results.put("jobSwitchP99Millis", switches.getQuantileMillis(0.99));
+        results.put("jobSwitchMaxMillis", switches.getMaxMillis());
+        results.put("firstShareMeanMillis", firstShares.getMeanMillis());
+        results.put("submitRttMeanMillis", submits.getMeanMillis());
+        results.put("submitRttP99Millis", submits.getQuantileMillis(0.99));
+        results.put("sharesFound", metrics.getTotals().getFound());
+        results.put("sharesAccepted", pool.getAccepted());
+        results.put("sharesStale", pool.getStale());
+        results.put("sharesDuplicate", pool.getDuplicate());
+        results.put("sharesInvalid", pool.getInvalid() + pool.getMalformed());
+        results.put("sharesDroppedStale", metrics.getTotals().getDroppedStale());
+        results.put("sharesDroppedDuplicate", metrics.getTotals().getDroppedDuplicate());
+        results.put("stalePercent", stalePercent);
+        results.put("sharesPerMinute", pool.getAccepted() * 60 / seconds);
+        results.put("difficultySuggestions", pool.getSuggestions());
+        results.put("verifiedHashRate", verifiedHashRate);
+        return results;
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        return String.format("mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms", histogram.getMeanMillis(),
+                histogram.getQuantileMillis(0.5), histogram.getQuantileMillis(0.99), histogram.getMaxMillis());
+    }
+}
@@ -0,0 +1,38 @@
+package nodecore.miners.pow.simulator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command-line options given as {@code --name value} pairs.
+ */
+class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String[] args, Set<String> known) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i].startsWith("--") ? args[i].substring(2) : null;
+            if (name == null || !known.contains(name) || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i] + "; options are --" + String.join(", --", known));
+            }
+            values.put(name, args[++i]);
+        }
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    double getDouble(String name, double defaultValue) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+    }
+}
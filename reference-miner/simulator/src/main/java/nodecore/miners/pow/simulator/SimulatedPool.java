@@ -0,0 +1,534 @@
+package nodecore.miners.pow.simulator;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.Utility;
+import nodecore.miners.pow.VBlake;
+import nodecore.miners.pow.VBlakeHasher;
+import nodecore.miners.pow.metrics.LatencyHistogram;
+import nodecore.miners.pow.stratum.MerkleRootCalculator;
+import nodecore.miners.pow.stratum.PreparedHeader;
+import nodecore.miners.pow.stratum.StratumJob;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A stand-in Stratum pool for end-to-end tests of the miner, speaking the same mining.subscribe,
+ * authorize, notify, set_difficulty and submit dialect as the VeriBlock stratum server.
+ *
+ * Jobs are synthetic but well-formed, and every submitted share is hashed with vBlake and checked
+ * against the session's difficulty, so a miner that builds the wrong header or reports the wrong nonce
+ * shows up as invalid shares. The hash is the table-driven {@link VBlake#compress(long[], byte[])}
+ * rather than the generated kernel the miner uses, so a fault in the kernel shows up too.
+ *
+ * Sessions start at the pool difficulty and take any difficulty suggested with
+ * mining.suggest_difficulty; as with set_difficulty, shares meeting the previous difficulty are
+ * accepted until the next job. Each session is given its own {@link #EXTRA_NONCE_SIZE}-byte
+ * extra-nonce space. A share is stale once its job has been superseded by a clean job or is more than
+ * {@link #MAX_ACTIVE_JOBS} jobs old.
+ *
+ * Each connection is served by its own thread; jobs may be pushed from any thread.
+ */
+public class SimulatedPool implements Closeable {
+    public static final int ERROR_OTHER = 20;
+    public static final int ERROR_JOB_NOT_FOUND = 21;
+    public static final int ERROR_DUPLICATE_SHARE = 22;
+    public static final int ERROR_LOW_DIFFICULTY = 23;
+
+    public static final int EXTRA_NONCE_SIZE = 4;
+    public static final int MAX_ACTIVE_JOBS = 16;
+    public static final BigInteger DEFAULT_DIFFICULTY = BigInteger.valueOf(50000);
+
+    // Header difficulty field of the synthetic jobs; only hashed, never checked
+    private static final int BLOCK_DIFFICULTY = 0x05F5E100;
+
+    private final ServerSocket server;
+    private final BigInteger difficulty;
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sessionCounter = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Guarded by this
+    private final Map<String, ActiveJob> activeJobs = new LinkedHashMap<>();
+    private final Random random = new Random();
+    private int height = 1000000;
+    // The previous hash of every job at this height, as with a real pool
+    private String previousHash;
+    private int jobCounter;
+    private String latestJob;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder duplicate = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder jobsPushed = new LongAdder();
+    private final LongAdder suggestions = new LongAdder();
+    private final DoubleAdder acceptedWork = new DoubleAdder();
+    private final LatencyHistogram firstShareLatency = new LatencyHistogram();
+
+    public SimulatedPool(int port, BigInteger difficulty) throws IOException {
+        this.server = new ServerSocket();
+        this.server.setReuseAddress(true);
+        this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.difficulty = difficulty;
+    }
+
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    public BigInteger getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Starts accepting connections. Sessions are sent the latest job as soon as they authorize, so at
+     * least one job should be pushed before a miner connects.
+     */
+    public void start() {
+        running.set(true);
+        Thread acceptor = new Thread(this::accept, "pool-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    public void close() {
+        running.set(false);
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        for (Session session : sessions) {
+            session.close();
+        }
+    }
+
+    /**
+     * Creates a new job and sends it to every authorized session. A clean job moves on to a new block
+     * height, with a new previous hash, and makes every earlier job stale.
+     */
+    public synchronized String pushJob(boolean cleanJobs) {
+        if (cleanJobs || activeJobs.isEmpty()) {
+            height++;
+            previousHash = randomHex(12);
+            activeJobs.clear();
+            cleanJobs = true;
+        }
+
+        String jobId = Integer.toHexString(++jobCounter);
+        StratumJob job = new StratumJob(jobId, height, (short) 1, previousHash, randomHex(9), randomHex(9),
+                new String[] { randomHex(32), randomHex(32), randomHex(32) },
+                (int) TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), BLOCK_DIFFICULTY);
+
+        activeJobs.put(jobId, new ActiveJob(job));
+        Iterator<String> oldest = activeJobs.keySet().iterator();
+        while (activeJobs.size() > MAX_ACTIVE_JOBS) {
+            oldest.next();
+            oldest.remove();
+        }
+
+        latestJob = notification(job, cleanJobs);
+        for (Session session : sessions) {
+            if (session.authorized) {
+                session.previousDifficulty = session.difficulty;
+                session.send(latestJob);
+            }
+        }
+        jobsPushed.increment();
+        return jobId;
+    }
+
+    public long getJobsPushed() {
+        return jobsPushed.sum();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getStale() {
+        return stale.sum();
+    }
+
+    public long getDuplicate() {
+        return duplicate.sum();
+    }
+
+    /**
+     * Shares whose hash misses the target or whose extra-nonce lies outside the session's space.
+     */
+    public long getInvalid() {
+        return invalid.sum();
+    }
+
+    public long getMalformed() {
+        return malformed.sum();
+    }
+
+    /**
+     * The sum of the difficulties of the accepted shares, which is the expected number of hashes the
+     * miner spent finding them.
+     */
+    public double getAcceptedWork() {
+        return acceptedWork.sum();
+    }
+
+    public long getSuggestions() {
+        return suggestions.sum();
+    }
+
+    public long getSubmitted() {
+        return getAccepted() + getStale() + getDuplicate() + getInvalid() + getMalformed();
+    }
+
+    /**
+     * Time from sending each job to receiving its first valid share.
+     */
+    public LatencyHistogram getFirstShareLatency() {
+        return firstShareLatency;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void accept() {
+        while (running.get()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+                socket.setTcpNoDelay(true);
+            } catch (IOException e) {
+                if (running.get()) {
+                    System.out.println("Simulated pool stopped accepting connections: " + e);
+                }
+                return;
+            }
+
+            // Session n mines extra-nonces [n << 32, (n + 1) << 32)
+            Session session;
+            try {
+                session = new Session(socket, (long) sessionCounter.incrementAndGet() << (8 * EXTRA_NONCE_SIZE));
+            } catch (IOException e) {
+                continue;
+            }
+            sessions.add(session);
+            Thread thread = new Thread(() -> serve(session), "pool-session-" + sessionCounter.get());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void serve(Session session) {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(session.socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    handle(session, line);
+                }
+            }
+        } catch (IOException e) {
+            // Disconnected
+        } finally {
+            sessions.remove(session);
+            session.close();
+        }
+    }
+
+    private void handle(Session session, String line) {
+        JsonElement id = JsonNull.INSTANCE;
+        try {
+            JsonObject request = new JsonParser().parse(line).getAsJsonObject();
+            id = request.has("id") ? request.get("id") : JsonNull.INSTANCE;
+            String method = request.get("method").getAsString();
+            JsonArray params = request.has("params") ? request.getAsJsonArray("params") : new JsonArray();
+
+            switch (method) {
+                case "mining.subscribe":
+                    JsonArray subscription = new JsonArray();
+                    JsonArray notify = new JsonArray();
+                    notify.add("mining.notify");
+                    notify.add(Integer.toString(session.hashCode(), 16));
+                    JsonArray subscriptions = new JsonArray();
+                    subscriptions.add(notify);
+                    subscription.add(subscriptions);
+                    subscription.add(String.format("%016x", session.extraNonce));
+                    subscription.add(EXTRA_NONCE_SIZE);
+                    respond(session, id, subscription);
+                    break;
+                case "mining.authorize":
+                    respond(session, id, true);
+                    synchronized (this) {
+                        session.authorized = true;
+                        session.send(gson.toJson(notification("mining.set_difficulty", session.difficulty.toString())));
+                        if (latestJob != null) {
+                            session.send(latestJob);
+                        }
+                    }
+                    break;
+                case "mining.submit":
+                    submit(session, id, params);
+                    break;
+                case "mining.suggest_difficulty":
+                    BigInteger suggested = new BigInteger(params.get(0).getAsString());
+                    if (suggested.signum() <= 0) {
+                        fail(session, id, ERROR_OTHER, "Difficulty must be positive");
+                        break;
+                    }
+                    suggestions.increment();
+                    respond(session, id, true);
+                    synchronized (this) {
+                        session.previousDifficulty = session.difficulty;
+                        session.difficulty = suggested;
+                        session.send(gson.toJson(notification("mining.set_difficulty", suggested.toString())));
+                    }
+                    break;
+                default:
+                    fail(session, id, ERROR_OTHER, "Unknown method " + method);
+            }
+        } catch (RuntimeException e) {
+            malformed.increment();
+            fail(session, id, ERROR_OTHER, "Malformed request: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks a share: params are the username, job id, extra-nonce, timestamp and nonce, in hex.
+     */
+    private void submit(Session session, JsonElement id, JsonArray params) {
+        String jobId = params.get(1).getAsString();
+        long extraNonce = Long.parseUnsignedLong(params.get(2).getAsString(), 16);
+        int timestamp = Integer.parseUnsignedInt(params.get(3).getAsString(), 16);
+        int nonce = Integer.parseUnsignedInt(params.get(4).getAsString(), 16);
+
+        ActiveJob job;
+        synchronized (this) {
+            job = activeJobs.get(jobId);
+        }
+        if (job == null) {
+            stale.increment();
+            fail(session, id, ERROR_JOB_NOT_FOUND, "Job not found");
+            return;
+        }
+
+        long offset = extraNonce - session.extraNonce;
+        if (offset < 0 || offset >= 1L << (8 * EXTRA_NONCE_SIZE)) {
+            invalid.increment();
+            fail(session, id, ERROR_OTHER, "Extra-nonce outside the assigned range");
+            return;
+        }
+
+        if (!job.isFirstSubmission(extraNonce, timestamp, nonce)) {
+            duplicate.increment();
+            fail(session, id, ERROR_DUPLICATE_SHARE, "Duplicate share");
+            return;
+        }
+
+        BigInteger difficulty = session.difficulty.min(session.previousDifficulty);
+        if (!session.meetsTarget(job.job, extraNonce, timestamp, nonce, difficulty)) {
+            invalid.increment();
+            fail(session, id, ERROR_LOW_DIFFICULTY, "Low difficulty share");
+            return;
+        }
+
+        accepted.increment();
+        acceptedWork.add(difficulty.doubleValue());
+        if (job.firstShare.compareAndSet(false, true)) {
+            firstShareLatency.record(System.nanoTime() - job.notifiedAt);
+        }
+        respond(session, id, true);
+    }
+
+    private void respond(Session session, JsonElement id, Object result) {
+        JsonObject response = new JsonObject();
+        response.add("id", id);
+        response.add("result", gson.toJsonTree(result));
+        response.add("error", JsonNull.INSTANCE);
+        session.send(gson.toJson(response));
+    }
+
+    private void fail(Session session, JsonElement id, int code, String message) {
+        JsonArray error = new JsonArray();
+        error.add(code);
+        error.add(message);
+        error.add(JsonNull.INSTANCE);
+
+        JsonObject response = new JsonObject();
+        response.add("id", id);
+        response.add("result", JsonNull.INSTANCE);
+        response.add("error", error);
+        session.send(gson.toJson(response));
+    }
+
+    private String notification(StratumJob job, boolean cleanJobs) {
+        JsonArray merkles = new JsonArray();
+        for (String merkle : job.intermediateMerkles) {
+            merkles.add(merkle);
+        }
+
+        JsonArray params = new JsonArray();
+        params.add(job.jobId);
+        params.add(String.format("%08x", job.height));
+        params.add(String.format("%04x", job.version));
+        params.add(job.previousHash);
+        params.add(job.previousKeystone);
+        params.add(job.secondPreviousKeystone);
+        params.add(merkles);
+        params.add(String.format("%08x", job.time));
+        params.add(String.format("%08x", job.difficulty));
+        params.add(cleanJobs);
+        return gson.toJson(notification("mining.notify", params));
+    }
+
+    private static JsonObject notification(String method, Object params) {
+        JsonObject message = new JsonObject();
+        message.add("id", JsonNull.INSTANCE);
+        message.addProperty("method", method);
+        if (params instanceof JsonArray) {
+            message.add("params", (JsonArray) params);
+        } else {
+            JsonArray single = new JsonArray();
+            single.add(params.toString());
+            message.add("params", single);
+        }
+        return message;
+    }
+
+    private String randomHex(int bytes) {
+        byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return Utility.bytesToHex(value);
+    }
+
+    private static final class ActiveJob {
+        private final StratumJob job;
+        private final long notifiedAt = System.nanoTime();
+        private final AtomicBoolean firstShare = new AtomicBoolean(false);
+        private final Set<String> submissions = ConcurrentHashMap.newKeySet();
+
+        private ActiveJob(StratumJob job) {
+            this.job = job;
+        }
+
+        private boolean isFirstSubmission(long extraNonce, int timestamp, int nonce) {
+            return submissions.add(extraNonce + ":" + timestamp + ":" + nonce);
+        }
+    }
+
+    private final class Session {
+        private final Socket socket;
+        private final Writer out;
+        private final long extraNonce;
+        private volatile boolean authorized;
+        private volatile BigInteger difficulty = SimulatedPool.this.difficulty;
+        private volatile BigInteger previousDifficulty = SimulatedPool.this.difficulty;
+
+        // Only used on the session's own thread
+        private final MerkleRootCalculator calculator = new MerkleRootCalculator();
+        private final byte[] header = new byte[VBlakeHasher.HEADER_SIZE];
+        private final long[] state = new long[8];
+        private final byte[] hash = new byte[VBlakeHasher.HASH_SIZE];
+
+        private Session(Socket socket, long extraNonce) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            this.extraNonce = extraNonce;
+        }
+
+        private synchronized void send(String line) {
+            try {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private boolean meetsTarget(StratumJob job, long extraNonce, int timestamp, int nonce, BigInteger difficulty) {
+            job.writeHeader(timestamp, extraNonce, calculator, header);
+            ByteBuffer.wrap(header).putInt(PreparedHeader.NONCE_OFFSET, nonce);
+            VBlake.initState(state);
+            VBlake.compress(state, header);
+            VBlake.recombineB2Bh(state, hash, 0);
+            return new BigInteger(1, hash).compareTo(HashTarget.fromDifficulty(difficulty).getValue()) <= 0;
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Runs a standalone pool that pushes jobs at a steady rate and prints its share counts every 10
+     * seconds, for pointing a separately started miner at.
+     *
+     * Usage: SimulatedPool [--port 18501] [--difficulty 50000] [--rate 1] [--clean-every 1]
+     */
+    public static void main(String... args) throws Exception {
+        Options options = new Options(args, new HashSet<>(Arrays.asList("port", "difficulty", "rate", "clean-every")));
+        BigInteger difficulty = new BigInteger(options.getString("difficulty", DEFAULT_DIFFICULTY.toString()));
+        double rate = options.getDouble("rate", 1);
+        int cleanEvery = options.getInt("clean-every", 1);
+
+        SimulatedPool pool = new SimulatedPool(options.getInt("port", 18501), difficulty);
+        pool.pushJob(true);
+        pool.start();
+        System.out.println(String.format("Simulated pool listening on %1$s, difficulty %2$s, %3$s jobs per second",
+                pool.getAddress(), difficulty, rate));
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long nextReport = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (long pushed = 1; ; pushed++) {
+            TimeUnit.NANOSECONDS.sleep(interval);
+            pool.pushJob(cleanEvery > 0 && pushed % cleanEvery == 0);
+
+            if (System.nanoTime() >= nextReport) {
+                nextReport += TimeUnit.SECONDS.toNanos(10);
+                System.out.println(String.format("%1$s session(s), %2$s jobs, shares: %3$s accepted, %4$s stale, %5$s duplicate, %6$s invalid",
+                        pool.getSessionCount(), pool.getJobsPushed(), pool.getAccepted(), pool.getStale(), pool.getDuplicate(), pool.getInvalid()));
+            }
+        }
+    }
+}
@@ -7,20 +7,102 @@
 
 package nodecore.miners.pow;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class Configuration {
+    public static final String DEFAULT_ACCOUNT = "default";
+
+    /**
+     * A payout username mined on its own pools, given a share of the threads by weight.
+     */
+    public static class Account {
+        public String name;
+        public String username;
+        public String hostAndPort;
+        public int weight = 1;
+
+        public List<String> getHostAndPorts() {
+            return splitHostAndPorts(hostAndPort);
+        }
+    }
+
+    // Number of mining threads, or 0 for one per physical core
     public int numThreadsInput;
     public String hostAndPort;
     public String username;
+    // Local port for the Prometheus metrics endpoint, or 0 to disable it
+    public int metricsPort;
+    // Whether each worker rolls through its own stride of extra-nonces
+    public boolean extraNonceRolling;
+    // Whether to pin each mining thread to its own CPU
+    public boolean pinThreads;
+    // Whether to run mining threads at low OS priority
+    public boolean lowPriority = true;
+    // Nonces each thread hashes between checks for new work, or 0 for the default
+    public int chunkSize;
+    // Length of each autotuning trial
+    public int autotuneSeconds = 3;
+    // Whether autotuning picks hashes per joule over hashes per second, where energy is measurable
+    public boolean autotuneForEfficiency;
+    // Whether pool connections use blocking I/O on virtual threads instead of the shared selector
+    public boolean virtualThreadIo;
+    // Shares per minute to keep each pool session near by suggesting a difficulty, or 0 to leave it to the pool
+    public double sharesPerMinute;
+    // Shares below this difficulty are never submitted, whatever the pool sets; 0 for no minimum
+    public long minimumDifficulty;
+    // Accounts sharing the miner; if empty, the single account given by username and hostAndPort
+    public List<Account> accounts = new ArrayList<>();
 
-    public String getHost() {
-        if (hostAndPort == null || hostAndPort.length() == 0) return null;
+    public List<Account> getAccounts() {
+        if (!accounts.isEmpty()) {
+            return accounts;
+        }
 
-        return hostAndPort.split(":")[0];
+        Account account = new Account();
+        account.name = DEFAULT_ACCOUNT;
+        account.username = username;
+        account.hostAndPort = hostAndPort;
+        List<Account> single = new ArrayList<>();
+        single.add(account);
+        return single;
+    }
+
+    /**
+     * The pools to mine on, in order of preference; {@code hostAndPort} may list several separated by
+     * commas.
+     */
+    public List<String> getHostAndPorts() {
+        return splitHostAndPorts(hostAndPort);
+    }
+
+    static List<String> splitHostAndPorts(String hostAndPort) {
+        List<String> pools = new ArrayList<>();
+        if (hostAndPort == null) return pools;
+
+        for (String pool : hostAndPort.split(",")) {
+            if (pool.trim().length() > 0) {
+                pools.add(pool.trim());
+            }
+        }
+        return pools;
+    }
+
+    public String getHost() {
+        List<String> pools = getHostAndPorts();
+        return pools.isEmpty() ? null : getHost(pools.get(0));
     }
 
     public int getPort() {
-        if (hostAndPort == null || hostAndPort.length() == 0) return -1;
+        List<String> pools = getHostAndPorts();
+        return pools.isEmpty() ? -1 : getPort(pools.get(0));
+    }
+
+    public static String getHost(String hostAndPort) {
+        return hostAndPort.split(":")[0];
+    }
 
+    public static int getPort(String hostAndPort) {
         return Integer.parseInt(hostAndPort.split(":")[1]);
     }
 }
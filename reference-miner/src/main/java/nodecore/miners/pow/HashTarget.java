@@ -0,0 +1,72 @@
+// VeriBlock PoW CPU Miner
+// Copyright 2017-2021 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package nodecore.miners.pow;
+
+import java.math.BigInteger;
+
+/**
+ * A 192-bit share target held as three unsigned 64-bit words, so a hash can be checked straight from
+ * the h[0 .. 2] words produced by {@link VBlakeKernel} without building a BigInteger.
+ */
+public final class HashTarget {
+    public static final BigInteger MAX_TARGET = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 16);
+
+    private static final BigInteger WORD_MASK = new BigInteger("FFFFFFFFFFFFFFFF", 16);
+
+    private final BigInteger value;
+
+    // Most significant word first
+    private final long w0;
+    private final long w1;
+    private final long w2;
+
+    public HashTarget(BigInteger value) {
+        if (value.signum() < 0 || value.compareTo(MAX_TARGET) > 0) {
+            throw new IllegalArgumentException("A hash target must fit in 192 bits (called with " + value + ")!");
+        }
+
+        this.value = value;
+        this.w0 = value.shiftRight(128).longValue();
+        this.w1 = value.shiftRight(64).and(WORD_MASK).longValue();
+        this.w2 = value.and(WORD_MASK).longValue();
+    }
+
+    public static HashTarget fromDifficulty(BigInteger difficulty) {
+        return new HashTarget(MAX_TARGET.divide(difficulty));
+    }
+
+    public BigInteger getValue() {
+        return value;
+    }
+
+    /**
+     * Returns whether the hash whose h[0 .. 2] words are given is at or below this target, as the
+     * pool checks shares.
+     *
+     * The hash bytes are the little-endian serialization of h[0], h[1], h[2] read as a big-endian
+     * number, so each word is byte-reversed before the unsigned comparison. Nearly every hash is
+     * rejected on the first word.
+     */
+    public boolean isMetBy(long h0, long h1, long h2) {
+        long word = Long.reverseBytes(h0);
+        if (word != w0) {
+            return Long.compareUnsigned(word, w0) < 0;
+        }
+
+        word = Long.reverseBytes(h1);
+        if (word != w1) {
+            return Long.compareUnsigned(word, w1) < 0;
+        }
+
+        return Long.compareUnsigned(Long.reverseBytes(h2), w2) <= 0;
+    }
+
+    public boolean isMetBy(long[] h) {
+        return isMetBy(h[0], h[1], h[2]);
+    }
+}
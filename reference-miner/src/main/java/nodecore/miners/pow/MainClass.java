@@ -6,71 +6,194 @@
 // file LICENSE or http://www.opensource.org/licenses/mit-license.php.
 
 package nodecore.miners.pow;
+import nodecore.miners.pow.cpu.Autotuner;
+import nodecore.miners.pow.cpu.CpuTopology;
+import nodecore.miners.pow.cpu.WorkerScheduler;
+import nodecore.miners.pow.metrics.MetricsHttpServer;
+import nodecore.miners.pow.metrics.MinerMetrics;
+import nodecore.miners.pow.stratum.BlockingStratumTransport;
 import nodecore.miners.pow.stratum.JobManager;
-import nodecore.miners.pow.stratum.StratumClient;
+import nodecore.miners.pow.stratum.NioEventLoop;
+import nodecore.miners.pow.stratum.NioStratumTransport;
+import nodecore.miners.pow.stratum.PoolConnection;
+import nodecore.miners.pow.stratum.StratumMiningThread;
+import nodecore.miners.pow.stratum.StratumTransport;
+import nodecore.miners.pow.stratum.VirtualThreads;
 
 import java.io.*;
+import java.math.BigInteger;
 import java.net.InetAddress;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainClass {
     public static void main(String... args) {
-        AtomicBoolean running = new AtomicBoolean(true);
-
+        WorkerScheduler scheduler;
         Configuration configuration = getConfiguredProperties();
         if (configuration == null)
         {
-            configuration = getConfigurationFromUserInput();
+            scheduler = new WorkerScheduler(CpuTopology.detect(), false, true);
+            configuration = getConfigurationFromUserInput(scheduler);
+        } else {
+            scheduler = new WorkerScheduler(CpuTopology.detect(), configuration.pinThreads, configuration.lowPriority);
+        }
+
+        System.out.println(String.format("CPU topology: %1$s", scheduler.getTopology()));
+        if (Arrays.asList(args).contains("--tune")) {
+            autotune(configuration, scheduler);
+        }
+        if (configuration.numThreadsInput <= 0) {
+            configuration.numThreadsInput = scheduler.defaultWorkerCount();
+        }
+        if (configuration.chunkSize <= 0) {
+            configuration.chunkSize = StratumMiningThread.DEFAULT_CHUNK_SIZE;
         }
 
         System.out.println(String.format("Number of threads=%1$s", configuration.numThreadsInput));
-        System.out.println(String.format("Host and Port=%1$s", configuration.hostAndPort));
-        System.out.println(String.format("Address=%1$s", configuration.username));
+        for (Configuration.Account account : configuration.getAccounts()) {
+            String prefix = configuration.accounts.isEmpty() ? "" : String.format("[%1$s, weight %2$s] ", account.name, account.weight);
+            System.out.println(String.format("%1$sHost and Port=%2$s", prefix, String.join(", ", account.getHostAndPorts())));
+            System.out.println(String.format("%1$sAddress=%2$s", prefix, account.username));
+        }
+        System.out.println(String.format("Chunk size=%1$s", configuration.chunkSize));
+        if (configuration.sharesPerMinute > 0) {
+            System.out.println(String.format("Target share rate=%1$s per minute", configuration.sharesPerMinute));
+        }
+        if (configuration.minimumDifficulty > 0) {
+            System.out.println(String.format("Minimum share difficulty=%1$s", configuration.minimumDifficulty));
+        }
 
-        Thread gateThread = null;
-        do {
-            try {
-                try (Socket remoteSocket = new Socket(configuration.getHost(), configuration.getPort());
-                    BufferedReader in = new BufferedReader(new InputStreamReader(remoteSocket.getInputStream()))) {
-                    CountDownLatch gate = new CountDownLatch(1);
+        NioEventLoop eventLoop;
+        try {
+            eventLoop = new NioEventLoop("stratum-io");
+        } catch (IOException e) {
+            System.out.println("The Reference PoW miner is unable to open a network selector!");
+            e.printStackTrace();
+            return;
+        }
+        eventLoop.start();
+
+        StratumTransport.Factory transports;
+        if (configuration.virtualThreadIo) {
+            System.out.println(VirtualThreads.isAvailable()
+                    ? "Pool I/O on virtual threads"
+                    : "Virtual threads need Java 21 or later; pool I/O on a platform thread per connection");
+            transports = address -> new BlockingStratumTransport(eventLoop, address);
+        } else {
+            transports = address -> new NioStratumTransport(eventLoop, address);
+        }
 
-                    if (gateThread != null) {
-                        Runtime.getRuntime().removeShutdownHook(gateThread);
-                    }
-                    gateThread = new Thread(() -> {
-                        running.set(false);
-                        gate.countDown();
-                    });
-                    Runtime.getRuntime().addShutdownHook(gateThread);
+        MinerMetrics metrics = new MinerMetrics();
+        MetricsHttpServer metricsServer = null;
+        if (configuration.metricsPort > 0) {
+            try {
+                metricsServer = new MetricsHttpServer(metrics, configuration.metricsPort);
+                metricsServer.start();
+            } catch (IOException e) {
+                System.out.println("Unable to serve metrics on port " + configuration.metricsPort + ": " + e.getMessage());
+            }
+        }
 
-                    StratumClient client = new StratumClient(configuration.username, remoteSocket.getOutputStream(), in);
-                    JobManager manager = new JobManager(client);
+        JobManager manager = new JobManager(eventLoop, metrics, configuration.extraNonceRolling);
+        for (Configuration.Account account : configuration.getAccounts()) {
+            List<PoolConnection> pools = new ArrayList<>();
+            for (String hostAndPort : account.getHostAndPorts()) {
+                InetSocketAddress address = new InetSocketAddress(Configuration.getHost(hostAndPort), Configuration.getPort(hostAndPort));
+                PoolConnection pool = new PoolConnection(hostAndPort, address, account.username, eventLoop, transports, metrics);
+                pool.setShareRate(configuration.sharesPerMinute);
+                pool.setMinimumDifficulty(BigInteger.valueOf(configuration.minimumDifficulty));
+                pools.add(pool);
+            }
+            manager.addAccount(account.name, account.weight, pools);
+        }
+        manager.setWorkerScheduler(scheduler);
+        manager.setChunkSize(configuration.chunkSize);
 
-                    manager.start(configuration.numThreadsInput);
-                    client.start();
+        // Pools reconnect by themselves; mining runs until the process is stopped
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(stopped::countDown));
+        manager.start(configuration.numThreadsInput);
 
-                    gate.await();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-                    manager.shutdown();
-                    client.shutdown();
-                }
-            } catch (IOException e) {
-                System.out.println("The Reference PoW miner is unable to connect to the specified remote mining host!");
-                e.printStackTrace();
-                try { Thread.sleep(1000); } catch (Exception ignored) { }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        } while (running.get());
+        manager.shutdown();
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        eventLoop.shutdown();
     }
 
     private static final String PROPERTY_FILE = "app.properties";
 
+    private static void autotune(Configuration configuration, WorkerScheduler scheduler) {
+        Autotuner autotuner = new Autotuner(scheduler, configuration.autotuneSeconds * 1000L, configuration.autotuneForEfficiency);
+        System.out.println(String.format("Calibrating thread count and chunk size, %1$s seconds per trial%2$s...",
+                configuration.autotuneSeconds, autotuner.isMeasuringEnergy() ? " (measuring energy)" : ""));
+
+        Autotuner.Result result;
+        try {
+            result = autotuner.run(scheduler.maxWorkerCount());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println("Best: " + result.best);
+        configuration.numThreadsInput = result.best.threads;
+        configuration.chunkSize = result.best.chunkSize;
+
+        try {
+            saveTunedProperties(configuration);
+            System.out.println(String.format("Saved to %1$s; run with --tune again to re-calibrate", PROPERTY_FILE));
+        } catch (IOException e) {
+            System.out.println("Unable to save the tuned settings to " + PROPERTY_FILE + ": " + e.getMessage());
+            System.out.println(String.format("To keep them, add these lines to %1$s:%n  miner.threadcount=%2$s%n  miner.chunksize=%3$s",
+                    PROPERTY_FILE, configuration.numThreadsInput, configuration.chunkSize));
+        }
+    }
+
+    /**
+     * Rewrites the thread count and chunk size in the property file, keeping every other line as it is.
+     * Without a property file, as after entering the settings at the prompt, one is created from the
+     * configuration so they are not asked for again.
+     */
+    private static void saveTunedProperties(Configuration configuration) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (new File(PROPERTY_FILE).exists()) {
+            lines.addAll(Files.readAllLines(Paths.get(PROPERTY_FILE), StandardCharsets.ISO_8859_1));
+        } else {
+            setProperty(lines, "miner.username", configuration.username);
+            setProperty(lines, "miner.host", configuration.hostAndPort);
+        }
+        setProperty(lines, "miner.threadcount", Integer.toString(configuration.numThreadsInput));
+        setProperty(lines, "miner.chunksize", Integer.toString(configuration.chunkSize));
+        Files.write(Paths.get(PROPERTY_FILE), lines, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void setProperty(List<String> lines, String key, String value) {
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.startsWith(key) && line.substring(key.length()).trim().matches("^[=:].*")) {
+                lines.set(i, key + "=" + value);
+                return;
+            }
+        }
+        lines.add(key + "=" + value);
+    }
+
     private static Configuration getConfiguredProperties() {
         //check if file exits
         boolean exists = (new File(PROPERTY_FILE)).exists();
@@ -92,9 +215,33 @@ public class MainClass {
             prop.load(input);
 
             // get the property value and print it out
-            data.numThreadsInput = Integer.parseInt( prop.getProperty("miner.threadcount"));
+            String threadCount = prop.getProperty("miner.threadcount", "auto").trim();
+            data.numThreadsInput = threadCount.equalsIgnoreCase("auto") ? 0 : Integer.parseInt(threadCount);
             data.username =  prop.getProperty("miner.username");
             data.hostAndPort =  prop.getProperty("miner.host");
+            for (String name : prop.getProperty("miner.accounts", "").split(",")) {
+                if (name.trim().isEmpty()) {
+                    continue;
+                }
+
+                Configuration.Account account = new Configuration.Account();
+                account.name = name.trim();
+                String prefix = "miner.account." + account.name + ".";
+                account.username = prop.getProperty(prefix + "username", data.username);
+                account.hostAndPort = prop.getProperty(prefix + "host", data.hostAndPort);
+                account.weight = Integer.parseInt(prop.getProperty(prefix + "weight", "1"));
+                data.accounts.add(account);
+            }
+            data.metricsPort = Integer.parseInt(prop.getProperty("miner.metrics.port", "0"));
+            data.extraNonceRolling = Boolean.parseBoolean(prop.getProperty("miner.extranonce.rolling", "false"));
+            data.pinThreads = Boolean.parseBoolean(prop.getProperty("miner.affinity", "false"));
+            data.lowPriority = Boolean.parseBoolean(prop.getProperty("miner.lowpriority", "true"));
+            data.chunkSize = Integer.parseInt(prop.getProperty("miner.chunksize", "0"));
+            data.autotuneSeconds = Integer.parseInt(prop.getProperty("miner.autotune.seconds", "3"));
+            data.sharesPerMinute = Double.parseDouble(prop.getProperty("miner.sharerate", "0"));
+            data.minimumDifficulty = Long.parseLong(prop.getProperty("miner.difficulty.minimum", "0"));
+            data.virtualThreadIo = prop.getProperty("miner.io", "nio").trim().equalsIgnoreCase("virtual");
+            data.autotuneForEfficiency = prop.getProperty("miner.autotune.objective", "hashrate").trim().equalsIgnoreCase("efficiency");
 
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -111,7 +258,7 @@ public class MainClass {
         return data;
     }
 
-    private static Configuration getConfigurationFromUserInput() {
+    private static Configuration getConfigurationFromUserInput(WorkerScheduler scheduler) {
         Scanner scan = new Scanner(System.in);
         Configuration config = new Configuration();
 
@@ -119,13 +266,15 @@ public class MainClass {
 
         //get from UI
         int iProcessorCount = Runtime.getRuntime().availableProcessors();
+        String defaultThreads = Integer.toString(scheduler.defaultWorkerCount());
 
-        System.out.println(String.format("How many threads would you like to mine on? Default=1, Maximum suggested=%1$s", iProcessorCount));
+        System.out.println(String.format("How many threads would you like to mine on? Default=%1$s (one per physical core), Maximum suggested=%2$s",
+                defaultThreads, iProcessorCount));
         String numThreadsInput = scan.nextLine();
         if (numThreadsInput.equals(""))
         {
-            numThreadsInput = "1";
-            System.out.println("Using default = 1");
+            numThreadsInput = defaultThreads;
+            System.out.println("Using default = " + defaultThreads);
         }
         while (!Utility.isPositiveInteger(numThreadsInput)) {
             System.out.println("Please enter an integer for the number of threads (" + numThreadsInput +
@@ -134,8 +283,8 @@ public class MainClass {
 
             if (numThreadsInput.equals(""))
             {
-                numThreadsInput = "1";
-                System.out.println("Using default = 1");
+                numThreadsInput = defaultThreads;
+                System.out.println("Using default = " + defaultThreads);
             }
         }
 
@@ -2,10 +2,21 @@ package nodecore.miners.pow;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 public class Utility {
     public static final char[] HEX_ALPHABET_ARRAY = "0123456789ABCDEF".toCharArray();
 
+    // The value of every ASCII hex digit in either case, and -1 for any other character
+    private static final byte[] HEX_VALUES = new byte[128];
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES["0123456789abcdef".charAt(i)] = (byte) i;
+            HEX_VALUES[HEX_ALPHABET_ARRAY[i]] = (byte) i;
+        }
+    }
+
     public static boolean isInteger(String toTest) {
         if (toTest == null) {
             return false;
@@ -86,19 +97,28 @@ public class Utility {
             throw new IllegalArgumentException("hexToBytes cannot be called with a null String!");
         }
 
-        if (!isHex(s)) {
-            throw new IllegalArgumentException("hexToBytes cannot be called with a non-hex String (called with " + s + ")!");
+        int len = s.length();
+        if ((len & 1) != 0) {
+            throw new IllegalArgumentException("hexToBytes cannot be called with an odd-length String (called with " + s + ")!");
         }
 
-        int len = s.length();
+        // Validates while decoding rather than scanning the string twice
         byte[] data = new byte[len / 2];
         for (int i = 0; i < len; i += 2) {
-            data[i / 2] = (byte) ((Character.digit(s.charAt(i), 16) << 4)
-                    + Character.digit(s.charAt(i+1), 16));
+            int high = hexDigit(s.charAt(i));
+            int low = hexDigit(s.charAt(i + 1));
+            if ((high | low) < 0) {
+                throw new IllegalArgumentException("hexToBytes cannot be called with a non-hex String (called with " + s + ")!");
+            }
+            data[i / 2] = (byte) ((high << 4) | low);
         }
         return data;
     }
 
+    private static int hexDigit(char c) {
+        return c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+    }
+
     /**
      * Encodes the provided byte array into an upper-case hexadecimal string.
      *
@@ -50,11 +50,53 @@ public class VBlake {
     };
 
     public static byte[] hash(byte[] input)	{
-        // BEGIN INIT
-        long[] h = new long[8];
+        if (input.length > VBlakeHasher.HEADER_SIZE) {
+            throw new IllegalArgumentException("vBlake hashes at most " + VBlakeHasher.HEADER_SIZE + " bytes (called with " + input.length + ")!");
+        }
+
+        byte[] header = input;
+        if (input.length < VBlakeHasher.HEADER_SIZE) {
+            // Shorter inputs are zero-padded to a full block
+            header = new byte[VBlakeHasher.HEADER_SIZE];
+            System.arraycopy(input, 0, header, 0, input.length);
+        }
 
-        byte[] b = new byte[64];
+        byte[] output = new byte[VBlakeHasher.HASH_SIZE];
+        new VBlakeHasher().hash(header, 0, output, 0);
+        return output;
+    }
 
+    /**
+     * Hashes a run of nonces against a {@link VBlakeKernel#prepare prepared} midstate and collects the
+     * ones that meet the target.
+     *
+     * Nonce {@code firstNonce + i} is placed in the high half of m[7] for i in [0, count), and the
+     * offset i of every hash that meets {@code target} is written to {@code found}. Scanning stops
+     * early once {@code found} is full, in which case the caller resumes after the last reported
+     * offset. {@code v} and {@code h} are caller-owned scratch space of 16 and 3 words.
+     *
+     * @return The number of offsets written to {@code found}
+     */
+    public static int hashBatch(long[] midstate, long m6, long m7Low, int firstNonce, int count,
+                                HashTarget target, int[] found, long[] v, long[] h) {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            long m7 = m7Low | ((long) Integer.reverseBytes(firstNonce + i) << 32);
+            VBlakeKernel.compress(midstate, m6, m7, v, h);
+            if (target.isMetBy(h[0], h[1], h[2])) {
+                found[hits++] = i;
+                if (hits == found.length) {
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Loads the initial chaining value h[0 .. 7] for a 24-byte vBlake hash.
+     */
+    public static void initState(long[] h) {
         h[0] = vBlake_iv[0];
         h[1] = vBlake_iv[1];
         h[2] = vBlake_iv[2];
@@ -66,26 +108,27 @@ public class VBlake {
 
         // outlen = 24, as VeriBlock uses a 192-bit hash
         h[0] ^= (long)(0x01010000 ^ 0x18);
-
-        // END INIT
-
-        // BEGIN UPDATE
-
-        for (int i = 0; i < input.length; i++) {
-            b[i] = input[i];
-        }
-
-        compress(h, b);
-
-        // END UPDATE
-
-        return recombineB2Bh(h);
     }
 
     public static void compress(long[] h, byte[] b) {
         long[] v = new long[16];
         long[] m = new long[16];
 
+        for (int i = 0; i < 8; i++) {
+            m[i] = bytesToLong(new byte[]{b[i * 8 + 7], b[i * 8 + 6],
+                    b[i * 8 + 5], b[i * 8 + 4],
+                    b[i * 8 + 3], b[i * 8 + 2],
+                    b[i * 8 + 1], b[i * 8 + 0]});
+        }
+
+        compress(h, v, m);
+    }
+
+    /**
+     * Compresses the message words m[0 .. 7] into h, using v as scratch space.
+     * m[8 .. 15] must be zero; none of the arrays are allocated here.
+     */
+    public static void compress(long[] h, long[] v, long[] m) {
         for (int i = 0; i < 8; i++) {
             v[i] = h[i];
             v[i + 8] = vBlake_iv[i];
@@ -97,13 +140,6 @@ public class VBlake {
         v[14] ^= (long)(-1); // f[0] = 0xFF..FF
         v[15] ^= 0;          // f[1] = 0x00..00
 
-        for (int i = 0; i < 8; i++) {
-            m[i] = bytesToLong(new byte[]{b[i * 8 + 7], b[i * 8 + 6],
-                    b[i * 8 + 5], b[i * 8 + 4],
-                    b[i * 8 + 3], b[i * 8 + 2],
-                    b[i * 8 + 1], b[i * 8 + 0]});
-        }
-
         // Using 16 rounds of the Blake2 G function, drawing on the additional 4 rows
         // of sigma from reference BLAKE implementation
         for (int i = 0; i < 16; i++) {
@@ -164,13 +200,10 @@ public class VBlake {
         v[c] = v[c] + v[d];
         v[b] = ROTR64(v[b] ^ v[c], 18);
 
-        // X'Y'Z' + X'YZ + XY'Z + XYZ'    LUT: 10010110
-        v[d] ^= (~v[a] & ~v[b] & ~v[c]) | (~v[a] & v[b] & v[c]) |
-                (v[a] & ~v[b] & v[c])   | (v[a] & v[b] & ~v[c]);
-
-        // X'Y'Z + X'YZ' + XY'Z' + XYZ    LUT: 01101001
-        v[d] ^= (~v[a] & ~v[b] & v[c]) | (~v[a] & v[b] & ~v[c]) |
-                (v[a] & ~v[b] & ~v[c]) | (v[a] & v[b] & v[c]);
+        // X'Y'Z' + X'YZ + XY'Z + XYZ'    LUT: 10010110, i.e. ~(X ^ Y ^ Z)
+        // X'Y'Z + X'YZ' + XY'Z' + XYZ    LUT: 01101001, i.e.   X ^ Y ^ Z
+        // Applying both to v[d] in turn leaves it complemented.
+        v[d] = ~v[d];
     }
 
     /**
@@ -195,16 +228,23 @@ public class VBlake {
      */
     public static byte[] recombineB2Bh(long[] h) {
         byte[] output = new byte[24];
+        recombineB2Bh(h, output, 0);
+        return output;
+    }
+
+    /**
+     * Writes the h[0 .. 2] array into output[offset .. offset + 23].
+     */
+    public static void recombineB2Bh(long[] h, byte[] output, int offset) {
         for (int i = 0; i < 3; i++) {
-            output[i * 8 + 0] = (byte)(h[i] >> 0);
-            output[i * 8 + 1] = (byte)(h[i] >> 8);
-            output[i * 8 + 2] = (byte)(h[i] >> 16);
-            output[i * 8 + 3] = (byte)(h[i] >> 24);
-            output[i * 8 + 4] = (byte)(h[i] >> 32);
-            output[i * 8 + 5] = (byte)(h[i] >> 40);
-            output[i * 8 + 6] = (byte)(h[i] >> 48);
-            output[i * 8 + 7] = (byte)(h[i] >> 56);
+            output[offset + i * 8 + 0] = (byte)(h[i] >> 0);
+            output[offset + i * 8 + 1] = (byte)(h[i] >> 8);
+            output[offset + i * 8 + 2] = (byte)(h[i] >> 16);
+            output[offset + i * 8 + 3] = (byte)(h[i] >> 24);
+            output[offset + i * 8 + 4] = (byte)(h[i] >> 32);
+            output[offset + i * 8 + 5] = (byte)(h[i] >> 40);
+            output[offset + i * 8 + 6] = (byte)(h[i] >> 48);
+            output[offset + i * 8 + 7] = (byte)(h[i] >> 56);
         }
-        return output;
     }
 }
@@ -0,0 +1,99 @@
+// VeriBlock Integration
+// Copyright 2019-2021 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package nodecore.miners.pow;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable vBlake hashing engine.
+ *
+ * All working state is owned by the instance, so hashing a header performs no allocation. Instances are
+ * not thread-safe; each mining thread is expected to hold its own.
+ */
+public class VBlakeHasher {
+    public static final int HEADER_SIZE = 64;
+    public static final int HASH_SIZE = 24;
+
+    private final long[] midstate = new long[VBlakeKernel.MIDSTATE_SIZE];
+    private final long[] v = new long[16];
+    private final long[] h = new long[3];
+
+    /**
+     * Hashes the 64-byte header starting at {@code offset} in {@code header}, writing the 24-byte
+     * result into {@code output} starting at {@code outputOffset}.
+     */
+    public void hash(byte[] header, int offset, byte[] output, int outputOffset) {
+        if (header.length - offset < HEADER_SIZE) {
+            throw new IllegalArgumentException("hash requires " + HEADER_SIZE + " bytes of header after offset " + offset + "!");
+        }
+
+        VBlakeKernel.compress(
+                readLongLE(header, offset),      readLongLE(header, offset + 8),
+                readLongLE(header, offset + 16), readLongLE(header, offset + 24),
+                readLongLE(header, offset + 32), readLongLE(header, offset + 40),
+                readLongLE(header, offset + 48), readLongLE(header, offset + 56),
+                midstate, v, h);
+        writeOutput(output, outputOffset);
+    }
+
+    /**
+     * Hashes the 64-byte header starting at absolute index {@code offset} in {@code header}, writing the
+     * 24-byte result into {@code output} starting at {@code outputOffset}. The buffer's position, limit
+     * and byte order are left untouched.
+     */
+    public void hash(ByteBuffer header, int offset, byte[] output, int outputOffset) {
+        if (header.hasArray()) {
+            hash(header.array(), header.arrayOffset() + offset, output, outputOffset);
+            return;
+        }
+
+        if (header.limit() - offset < HEADER_SIZE) {
+            throw new IllegalArgumentException("hash requires " + HEADER_SIZE + " bytes of header after offset " + offset + "!");
+        }
+
+        VBlakeKernel.compress(
+                readLongLE(header, offset),      readLongLE(header, offset + 8),
+                readLongLE(header, offset + 16), readLongLE(header, offset + 24),
+                readLongLE(header, offset + 32), readLongLE(header, offset + 40),
+                readLongLE(header, offset + 48), readLongLE(header, offset + 56),
+                midstate, v, h);
+        writeOutput(output, outputOffset);
+    }
+
+    private void writeOutput(byte[] output, int outputOffset) {
+        if (output.length - outputOffset < HASH_SIZE) {
+            throw new IllegalArgumentException("hash requires " + HASH_SIZE + " bytes of output after offset " + outputOffset + "!");
+        }
+
+        VBlake.recombineB2Bh(h, output, outputOffset);
+    }
+
+    /**
+     * Reads 8 bytes at {@code i} as a little-endian long, the order vBlake uses for message words.
+     */
+    public static long readLongLE(byte[] b, int i) {
+        return ((b[i]     & 0xFFL)) |
+               ((b[i + 1] & 0xFFL) << 8) |
+               ((b[i + 2] & 0xFFL) << 16) |
+               ((b[i + 3] & 0xFFL) << 24) |
+               ((b[i + 4] & 0xFFL) << 32) |
+               ((b[i + 5] & 0xFFL) << 40) |
+               ((b[i + 6] & 0xFFL) << 48) |
+               ((b[i + 7] & 0xFFL) << 56);
+    }
+
+    private static long readLongLE(ByteBuffer b, int i) {
+        return ((b.get(i)     & 0xFFL)) |
+               ((b.get(i + 1) & 0xFFL) << 8) |
+               ((b.get(i + 2) & 0xFFL) << 16) |
+               ((b.get(i + 3) & 0xFFL) << 24) |
+               ((b.get(i + 4) & 0xFFL) << 32) |
+               ((b.get(i + 5) & 0xFFL) << 40) |
+               ((b.get(i + 6) & 0xFFL) << 48) |
+               ((b.get(i + 7) & 0xFFL) << 56);
+    }
+}
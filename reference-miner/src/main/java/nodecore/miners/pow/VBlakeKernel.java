@@ -0,0 +1,1470 @@
+// VeriBlock Integration
+// Copyright 2019-2021 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package nodecore.miners.pow;
+
+// GENERATED by tools/gen_vblake_kernel.py - do not edit by hand.
+
+/**
+ * Fully unrolled single-block vBlake compression.
+ *
+ * The 16 state words are locals and every sigma lookup has been resolved by the generator. The
+ * rounds are split across four methods to stay under HotSpot's huge-method limit. Each G ends in
+ * the boolean equivalent of the two LUT post-mix steps in {@link VBlake#B2B_G}: XORing d with
+ * ~(a ^ b ^ c) and then with (a ^ b ^ c) is a plain complement of d.
+ */
+public final class VBlakeKernel {
+    public static final int MIDSTATE_SIZE = 22;
+
+    private static final long C0 = 0xA51B6A89D489E800L;
+    private static final long C1 = 0xD35B2E0E0B723800L;
+    private static final long C2 = 0xA47B39A2AE9F9000L;
+    private static final long C3 = 0x0C0EFA33E77E6488L;
+    private static final long C4 = 0x4F452FEC309911EBL;
+    private static final long C5 = 0x3CFCC66F74E1022CL;
+    private static final long C6 = 0x4606AD364DC879DDL;
+    private static final long C7 = 0xBBA055B53D47C800L;
+    private static final long C8 = 0x531655D90C59EB1BL;
+    private static final long C9 = 0xD1A00BA6DAE5B800L;
+    private static final long C10 = 0x2FE452DA9632463EL;
+    private static final long C11 = 0x98A7B5496226F800L;
+    private static final long C12 = 0xBAFCD004F92CA000L;
+    private static final long C13 = 0x64A39957839525E7L;
+    private static final long C14 = 0xD859E6F081AAE000L;
+    private static final long C15 = 0x63D980597B560E6BL;
+
+    private static final long V0 = 0x4BBF42C1F107AD85L;
+    private static final long V1 = 0x5D11A8C3B5AEB12EL;
+    private static final long V2 = 0xA64AB78DC2774652L;
+    private static final long V3 = 0xC67595724658F253L;
+    private static final long V4 = 0xB8864E79CB891E56L;
+    private static final long V5 = 0x12ED593E29FB41A1L;
+    private static final long V6 = 0xB1DA3AB63C60BAA8L;
+    private static final long V7 = 0x6D20E50C1F954DEDL;
+    private static final long V8 = 0x4BBF42C1F006AD9DL;
+    private static final long V9 = 0x5D11A8C3B5AEB12EL;
+    private static final long V10 = 0xA64AB78DC2774652L;
+    private static final long V11 = 0xC67595724658F253L;
+    private static final long V12 = 0xB8864E79CB891E16L;
+    private static final long V13 = 0x12ED593E29FB41A1L;
+    private static final long V14 = 0x4E25C549C39F4557L;
+    private static final long V15 = 0x6D20E50C1F954DEDL;
+
+    // Chaining value terms folded into the final h[0 .. 2]
+    private static final long H0 = 0x3C10ED058B3FE57EL;
+    private static final long H1 = 0x88B703B661B2E295L;
+    private static final long H2 = 0xB4A7EEB3EB8C07F3L;
+
+    private VBlakeKernel() { }
+
+    /**
+     * Hashes the message words m[0 .. 7] of a 64-byte header (little-endian, as read by
+     * {@link VBlake#compress(long[], byte[])}) and stores the resulting h[0 .. 2] in {@code h}.
+     * {@code midstate} and {@code v} are caller-owned scratch space of {@link #MIDSTATE_SIZE} and 16
+     * words respectively.
+     */
+    public static void compress(long m0, long m1, long m2, long m3, long m4, long m5, long m6, long m7,
+                                long[] midstate, long[] v, long[] h) {
+        prepare(m0, m1, m2, m3, m4, m5, midstate);
+        compress(midstate, m6, m7, v, h);
+    }
+
+    /**
+     * Computes the part of the compression that depends only on m[0 .. 5] into {@code midstate},
+     * which must hold {@link #MIDSTATE_SIZE} words. Words 0 .. 15 are the working state after the
+     * first three G calls of round 0 and words 16 .. 21 the message words XORed with their constants.
+     */
+    public static void prepare(long m0, long m1, long m2, long m3, long m4, long m5, long[] midstate) {
+        final long x0 = m0 ^ C0;
+        final long x1 = m1 ^ C1;
+        final long x2 = m2 ^ C2;
+        final long x3 = m3 ^ C3;
+        final long x4 = m4 ^ C4;
+        final long x5 = m5 ^ C5;
+
+        long v0 = V0;
+        long v1 = V1;
+        long v2 = V2;
+        long v3 = V3;
+        long v4 = V4;
+        long v5 = V5;
+        long v6 = V6;
+        long v7 = V7;
+        long v8 = V8;
+        long v9 = V9;
+        long v10 = V10;
+        long v11 = V11;
+        long v12 = V12;
+        long v13 = V13;
+        long v14 = V14;
+        long v15 = V15;
+
+        // Round 0, columns 0 .. 2
+        v0 = v0 + v4 + x1;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + x0;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x3;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x2;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x5;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x4;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+
+        midstate[0] = v0;
+        midstate[1] = v1;
+        midstate[2] = v2;
+        midstate[3] = v3;
+        midstate[4] = v4;
+        midstate[5] = v5;
+        midstate[6] = v6;
+        midstate[7] = v7;
+        midstate[8] = v8;
+        midstate[9] = v9;
+        midstate[10] = v10;
+        midstate[11] = v11;
+        midstate[12] = v12;
+        midstate[13] = v13;
+        midstate[14] = v14;
+        midstate[15] = v15;
+        midstate[16] = x0;
+        midstate[17] = x1;
+        midstate[18] = x2;
+        midstate[19] = x3;
+        midstate[20] = x4;
+        midstate[21] = x5;
+    }
+
+    /**
+     * Finishes a hash from a {@link #prepare prepared} midstate and the remaining message words
+     * m[6] and m[7], storing h[0 .. 2] in {@code h}. {@code v} is caller-owned scratch space of 16
+     * words; {@code midstate} is only read.
+     */
+    public static void compress(long[] midstate, long m6, long m7, long[] v, long[] h) {
+        final long x0 = midstate[16];
+        final long x1 = midstate[17];
+        final long x2 = midstate[18];
+        final long x3 = midstate[19];
+        final long x4 = midstate[20];
+        final long x5 = midstate[21];
+        final long x6 = m6 ^ C6;
+        final long x7 = m7 ^ C7;
+
+        rounds0To3(midstate, x0, x1, x2, x3, x4, x5, x6, x7, v);
+        rounds4To7(v, x0, x1, x2, x3, x4, x5, x6, x7, v);
+        rounds8To11(v, x0, x1, x2, x3, x4, x5, x6, x7, v);
+        rounds12To15(v, x0, x1, x2, x3, x4, x5, x6, x7, v, h);
+    }
+
+    private static void rounds0To3(long[] in, long x0, long x1, long x2, long x3, long x4, long x5,
+            long x6, long x7, long[] v) {
+        long v0 = in[0];
+        long v1 = in[1];
+        long v2 = in[2];
+        long v3 = in[3];
+        long v4 = in[4];
+        long v5 = in[5];
+        long v6 = in[6];
+        long v7 = in[7];
+        long v8 = in[8];
+        long v9 = in[9];
+        long v10 = in[10];
+        long v11 = in[11];
+        long v12 = in[12];
+        long v13 = in[13];
+        long v14 = in[14];
+        long v15 = in[15];
+
+        // Round 0
+        v3 = v3 + v7 + x7;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + x6;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C9;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C8;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + C11;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + C10;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + C13;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C12;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C15;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C14;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 1
+        v0 = v0 + v4 + C10;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C14;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + C8;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x4;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + C15;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + C9;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + x6;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C13;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C12;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x1;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x2;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x0;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x7;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C11;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + x3;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + x5;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 2
+        v0 = v0 + v4 + C8;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C11;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x0;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + C12;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x2;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x5;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C13;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C15;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C14;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C10;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x6;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x3;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x1;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x7;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + x4;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C9;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 3
+        v0 = v0 + v4 + C9;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + x7;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x1;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x3;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + C12;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + C13;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C14;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C11;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + x6;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x2;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + C10;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x5;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x0;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x4;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C8;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C15;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        v[0] = v0;
+        v[1] = v1;
+        v[2] = v2;
+        v[3] = v3;
+        v[4] = v4;
+        v[5] = v5;
+        v[6] = v6;
+        v[7] = v7;
+        v[8] = v8;
+        v[9] = v9;
+        v[10] = v10;
+        v[11] = v11;
+        v[12] = v12;
+        v[13] = v13;
+        v[14] = v14;
+        v[15] = v15;
+    }
+
+    private static void rounds4To7(long[] in, long x0, long x1, long x2, long x3, long x4, long x5,
+            long x6, long x7, long[] v) {
+        long v0 = in[0];
+        long v1 = in[1];
+        long v2 = in[2];
+        long v3 = in[3];
+        long v4 = in[4];
+        long v5 = in[5];
+        long v6 = in[6];
+        long v7 = in[7];
+        long v8 = in[8];
+        long v9 = in[9];
+        long v10 = in[10];
+        long v11 = in[11];
+        long v12 = in[12];
+        long v13 = in[13];
+        long v14 = in[14];
+        long v15 = in[15];
+
+        // Round 4
+        v0 = v0 + v4 + x0;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C9;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x7;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x5;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x4;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x2;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C15;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C10;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + x1;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C14;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + C12;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + C11;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + C8;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x6;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C13;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + x3;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 5
+        v0 = v0 + v4 + C12;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + x2;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + C10;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x6;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + C11;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x0;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + x3;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C8;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C13;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x4;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x5;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x7;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + C14;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C15;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C9;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + x1;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 6
+        v0 = v0 + v4 + x5;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C12;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + C15;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x1;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + C13;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + C14;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C10;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + x4;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + x7;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x0;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x3;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x6;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x2;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C9;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C11;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C8;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 7
+        v0 = v0 + v4 + C11;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C13;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + C14;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x7;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x1;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + C12;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C9;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + x3;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + x0;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x5;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x4;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + C15;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x6;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C8;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C10;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + x2;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        v[0] = v0;
+        v[1] = v1;
+        v[2] = v2;
+        v[3] = v3;
+        v[4] = v4;
+        v[5] = v5;
+        v[6] = v6;
+        v[7] = v7;
+        v[8] = v8;
+        v[9] = v9;
+        v[10] = v10;
+        v[11] = v11;
+        v[12] = v12;
+        v[13] = v13;
+        v[14] = v14;
+        v[15] = v15;
+    }
+
+    private static void rounds8To11(long[] in, long x0, long x1, long x2, long x3, long x4, long x5,
+            long x6, long x7, long[] v) {
+        long v0 = in[0];
+        long v1 = in[1];
+        long v2 = in[2];
+        long v3 = in[3];
+        long v4 = in[4];
+        long v5 = in[5];
+        long v6 = in[6];
+        long v7 = in[7];
+        long v8 = in[8];
+        long v9 = in[9];
+        long v10 = in[10];
+        long v11 = in[11];
+        long v12 = in[12];
+        long v13 = in[13];
+        long v14 = in[14];
+        long v15 = in[15];
+
+        // Round 8
+        v0 = v0 + v4 + C15;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + x6;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + C9;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + C14;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x3;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + C11;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C8;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + x0;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + x2;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C12;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x7;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + C13;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x4;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x1;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + x5;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C10;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 9
+        v0 = v0 + v4 + x2;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C10;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x4;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + C8;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x6;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x7;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + x5;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + x1;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C11;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C15;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + C14;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + C9;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + C12;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x3;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + x0;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C13;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 10
+        v0 = v0 + v4 + x1;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + x0;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x3;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x2;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x5;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x4;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + x7;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + x6;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C9;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C8;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + C11;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + C10;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + C13;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C12;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C15;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C14;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 11
+        v0 = v0 + v4 + C10;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C14;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + C8;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x4;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + C15;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + C9;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + x6;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C13;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C12;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x1;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x2;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x0;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x7;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C11;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + x3;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + x5;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        v[0] = v0;
+        v[1] = v1;
+        v[2] = v2;
+        v[3] = v3;
+        v[4] = v4;
+        v[5] = v5;
+        v[6] = v6;
+        v[7] = v7;
+        v[8] = v8;
+        v[9] = v9;
+        v[10] = v10;
+        v[11] = v11;
+        v[12] = v12;
+        v[13] = v13;
+        v[14] = v14;
+        v[15] = v15;
+    }
+
+    private static void rounds12To15(long[] in, long x0, long x1, long x2, long x3, long x4, long x5,
+            long x6, long x7, long[] v, long[] h) {
+        long v0 = in[0];
+        long v1 = in[1];
+        long v2 = in[2];
+        long v3 = in[3];
+        long v4 = in[4];
+        long v5 = in[5];
+        long v6 = in[6];
+        long v7 = in[7];
+        long v8 = in[8];
+        long v9 = in[9];
+        long v10 = in[10];
+        long v11 = in[11];
+        long v12 = in[12];
+        long v13 = in[13];
+        long v14 = in[14];
+        long v15 = in[15];
+
+        // Round 12
+        v0 = v0 + v4 + C8;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C11;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x0;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + C12;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x2;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x5;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C13;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C15;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C14;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C10;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x6;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x3;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x1;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x7;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + x4;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C9;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 13
+        v0 = v0 + v4 + C9;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + x7;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x1;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x3;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + C12;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + C13;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C14;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C11;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + x6;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x2;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + C10;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x5;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + x0;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x4;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C8;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + C15;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 14
+        v0 = v0 + v4 + x0;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + C9;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + x7;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x5;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + x4;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x2;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + C15;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C10;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + x1;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + C14;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + C12;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + C11;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + C8;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + x6;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C13;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + x3;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        // Round 15
+        v0 = v0 + v4 + C12;
+        v12 = Long.rotateRight(v12 ^ v0, 60);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 43);
+        v0 = v0 + v4 + x2;
+        v12 = Long.rotateRight(v12 ^ v0, 5);
+        v8 = v8 + v12;
+        v4 = Long.rotateRight(v4 ^ v8, 18);
+        v12 = ~v12;
+        v1 = v1 + v5 + C10;
+        v13 = Long.rotateRight(v13 ^ v1, 60);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 43);
+        v1 = v1 + v5 + x6;
+        v13 = Long.rotateRight(v13 ^ v1, 5);
+        v9 = v9 + v13;
+        v5 = Long.rotateRight(v5 ^ v9, 18);
+        v13 = ~v13;
+        v2 = v2 + v6 + C11;
+        v14 = Long.rotateRight(v14 ^ v2, 60);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 43);
+        v2 = v2 + v6 + x0;
+        v14 = Long.rotateRight(v14 ^ v2, 5);
+        v10 = v10 + v14;
+        v6 = Long.rotateRight(v6 ^ v10, 18);
+        v14 = ~v14;
+        v3 = v3 + v7 + x3;
+        v15 = Long.rotateRight(v15 ^ v3, 60);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 43);
+        v3 = v3 + v7 + C8;
+        v15 = Long.rotateRight(v15 ^ v3, 5);
+        v11 = v11 + v15;
+        v7 = Long.rotateRight(v7 ^ v11, 18);
+        v15 = ~v15;
+        v0 = v0 + v5 + C13;
+        v15 = Long.rotateRight(v15 ^ v0, 60);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 43);
+        v0 = v0 + v5 + x4;
+        v15 = Long.rotateRight(v15 ^ v0, 5);
+        v10 = v10 + v15;
+        v5 = Long.rotateRight(v5 ^ v10, 18);
+        v15 = ~v15;
+        v1 = v1 + v6 + x5;
+        v12 = Long.rotateRight(v12 ^ v1, 60);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 43);
+        v1 = v1 + v6 + x7;
+        v12 = Long.rotateRight(v12 ^ v1, 5);
+        v11 = v11 + v12;
+        v6 = Long.rotateRight(v6 ^ v11, 18);
+        v12 = ~v12;
+        v2 = v2 + v7 + C14;
+        v13 = Long.rotateRight(v13 ^ v2, 60);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 43);
+        v2 = v2 + v7 + C15;
+        v13 = Long.rotateRight(v13 ^ v2, 5);
+        v8 = v8 + v13;
+        v7 = Long.rotateRight(v7 ^ v8, 18);
+        v13 = ~v13;
+        v3 = v3 + v4 + C9;
+        v14 = Long.rotateRight(v14 ^ v3, 60);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 43);
+        v3 = v3 + v4 + x1;
+        v14 = Long.rotateRight(v14 ^ v3, 5);
+        v9 = v9 + v14;
+        v4 = Long.rotateRight(v4 ^ v9, 18);
+        v14 = ~v14;
+
+        h[0] = H0 ^ v0 ^ v8 ^ v3 ^ v11 ^ v6 ^ v14;
+        h[1] = H1 ^ v1 ^ v9 ^ v4 ^ v12 ^ v7 ^ v15;
+        h[2] = H2 ^ v2 ^ v10 ^ v5 ^ v13;
+    }
+}
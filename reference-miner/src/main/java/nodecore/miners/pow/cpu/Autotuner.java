@@ -0,0 +1,257 @@
+package nodecore.miners.pow.cpu;
+
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.stratum.MerkleRootCalculator;
+import nodecore.miners.pow.stratum.PreparedHeader;
+import nodecore.miners.pow.stratum.StratumJob;
+import nodecore.miners.pow.stratum.StratumMiningThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finds the thread count and chunk size (nonces hashed between checks for new work) that mine fastest
+ * on this machine, by running the real hashing loop against a synthetic job. No pool is needed.
+ *
+ * Thread counts from 1 to the given maximum are measured at the default chunk size first, then each
+ * candidate chunk size at the best thread count. A larger candidate only wins if it is more than 1%
+ * better, so ties go to fewer threads and quicker reaction to new jobs. If RAPL energy counters are
+ * readable, each trial also reports hashes per joule, and the choice can be made on that instead.
+ */
+public class Autotuner {
+    private static final Logger logger = LoggerFactory.getLogger(Autotuner.class);
+
+    public static final int[] CHUNK_SIZES = { 256, 1024, 4096, 16384 };
+
+    private static final long WARMUP_MILLIS = 1000;
+    private static final double MIN_IMPROVEMENT = 1.01;
+    // As in StratumMiningThread, the timestamp is refreshed about every 10240 nonces
+    private static final int TIMESTAMP_REFRESH_NONCES = 10240;
+
+    public static final class Trial {
+        public final int threads;
+        public final int chunkSize;
+        public final double hashesPerSecond;
+        // NaN if energy couldn't be measured
+        public final double hashesPerJoule;
+
+        Trial(int threads, int chunkSize, double hashesPerSecond, double hashesPerJoule) {
+            this.threads = threads;
+            this.chunkSize = chunkSize;
+            this.hashesPerSecond = hashesPerSecond;
+            this.hashesPerJoule = hashesPerJoule;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%2d threads, chunk %5d: %,12.0f H/s%s", threads, chunkSize, hashesPerSecond,
+                    Double.isNaN(hashesPerJoule) ? "" : String.format(", %,10.0f H/J", hashesPerJoule));
+        }
+    }
+
+    public static final class Result {
+        public final Trial best;
+        public final List<Trial> trials;
+
+        Result(Trial best, List<Trial> trials) {
+            this.best = best;
+            this.trials = Collections.unmodifiableList(trials);
+        }
+    }
+
+    private final WorkerScheduler scheduler;
+    private final long trialMillis;
+    private final boolean preferEfficiency;
+    private final RaplEnergyCounter energy = RaplEnergyCounter.open();
+    private final StratumJob job = syntheticJob();
+
+    public Autotuner(WorkerScheduler scheduler, long trialMillis, boolean preferEfficiency) {
+        this.scheduler = scheduler;
+        this.trialMillis = trialMillis;
+        this.preferEfficiency = preferEfficiency;
+    }
+
+    public boolean isMeasuringEnergy() {
+        return energy != null;
+    }
+
+    public Result run(int maxThreads) throws InterruptedException {
+        if (preferEfficiency && energy == null) {
+            logger.info("RAPL energy counters are not readable, tuning for hashrate instead");
+        }
+
+        List<Trial> trials = new ArrayList<>();
+
+        // Let the JIT compile the kernel before anything is timed
+        measure(1, StratumMiningThread.DEFAULT_CHUNK_SIZE, WARMUP_MILLIS);
+
+        Trial best = null;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            Trial trial = measure(threads, StratumMiningThread.DEFAULT_CHUNK_SIZE, trialMillis);
+            logger.info("{}", trial);
+            trials.add(trial);
+            best = better(best, trial);
+        }
+
+        Trial bestThreads = best;
+        for (int chunkSize : CHUNK_SIZES) {
+            if (chunkSize == StratumMiningThread.DEFAULT_CHUNK_SIZE) {
+                continue;
+            }
+
+            Trial trial = measure(bestThreads.threads, chunkSize, trialMillis);
+            logger.info("{}", trial);
+            trials.add(trial);
+            best = better(best, trial);
+        }
+
+        return new Result(best, trials);
+    }
+
+    private Trial better(Trial best, Trial candidate) {
+        if (best == null) {
+            return candidate;
+        }
+
+        boolean byEnergy = preferEfficiency && energy != null;
+        double bestScore = byEnergy ? best.hashesPerJoule : best.hashesPerSecond;
+        double score = byEnergy ? candidate.hashesPerJoule : candidate.hashesPerSecond;
+        return score > bestScore * MIN_IMPROVEMENT ? candidate : best;
+    }
+
+    /**
+     * Runs {@code threads} hashing threads with the given chunk size and measures them over
+     * {@code millis}, after a short settling period.
+     */
+    Trial measure(int threads, int chunkSize, long millis) throws InterruptedException {
+        AtomicLongArray hashes = new AtomicLongArray(threads);
+        CountDownLatch started = new CountDownLatch(threads);
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, chunkSize, hashes, started);
+            workers[i].start();
+        }
+
+        try {
+            started.await();
+            Thread.sleep(Math.min(200, millis / 4));
+
+            long[] energyStart = readEnergy();
+            long hashesStart = sum(hashes);
+            long timeStart = System.nanoTime();
+
+            Thread.sleep(millis);
+
+            long[] energyEnd = readEnergy();
+            long hashesEnd = sum(hashes);
+            long timeEnd = System.nanoTime();
+
+            double seconds = (timeEnd - timeStart) / 1e9;
+            double hashed = hashesEnd - hashesStart;
+            double joules = energyStart != null && energyEnd != null ? energy.joulesBetween(energyStart, energyEnd) : 0;
+            return new Trial(threads, chunkSize, hashed / seconds, joules > 0 ? hashed / joules : Double.NaN);
+        } finally {
+            for (Worker worker : workers) {
+                worker.running = false;
+            }
+            for (Worker worker : workers) {
+                worker.join();
+            }
+        }
+    }
+
+    private long[] readEnergy() {
+        if (energy == null) {
+            return null;
+        }
+
+        try {
+            return energy.read();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long sum(AtomicLongArray values) {
+        long total = 0;
+        for (int i = 0; i < values.length(); i++) {
+            total += values.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Hashes like a mining thread does, with one volatile read per chunk and periodic timestamp
+     * updates, against a target nothing can meet.
+     */
+    private class Worker extends Thread {
+        private final int index;
+        private final int chunkSize;
+        private final AtomicLongArray hashes;
+        private final CountDownLatch started;
+        private volatile boolean running = true;
+
+        Worker(int index, int chunkSize, AtomicLongArray hashes, CountDownLatch started) {
+            super("autotune-" + index);
+            this.index = index;
+            this.chunkSize = chunkSize;
+            this.hashes = hashes;
+            this.started = started;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            scheduler.onWorkerStarted(index);
+
+            PreparedHeader work = new PreparedHeader(job, (int) Instant.now().getEpochSecond(), index, new MerkleRootCalculator());
+            HashTarget target = new HashTarget(BigInteger.ZERO);
+            int refreshChunks = Math.max(1, TIMESTAMP_REFRESH_NONCES / chunkSize);
+            long[] v = new long[16];
+            long[] h = new long[3];
+            int[] found = new int[16];
+
+            started.countDown();
+
+            long total = 0;
+            int nonce = 0;
+            int chunkCount = 0;
+            while (running) {
+                if (++chunkCount == refreshChunks) {
+                    chunkCount = 0;
+                    work.setTimestamp((int) Instant.now().getEpochSecond());
+                }
+
+                work.hashBatch(nonce, chunkSize, target, found, v, h);
+                nonce += chunkSize;
+                total += chunkSize;
+                hashes.lazySet(index, total);
+            }
+        }
+    }
+
+    private static StratumJob syntheticJob() {
+        return new StratumJob(
+                "autotune",
+                1000000,
+                (short) 1,
+                "00000000000A2B7F4C81D0E3",
+                "0000005E62C06F3A82",
+                "00000071AD3D0B9E14",
+                new String[] {
+                        "5A37A59FE1F8C4C4B0D11D60AAB37AA8B5B7E1D3C4A9C6C4D0A2F1B6E3C9A8D7",
+                        "0E52C5EF4D5F04F0B3E3F2A1D9C8B7A6958473625140F1E2D3C4B5A697887766",
+                        "C0FFEE00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC"
+                },
+                (int) Instant.now().getEpochSecond(),
+                0x05F5E100);
+    }
+}
@@ -0,0 +1,222 @@
+package nodecore.miners.pow.cpu;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The machine's logical CPUs grouped into physical cores, sockets and NUMA nodes, as reported by Linux
+ * under /sys/devices/system. Elsewhere, or if sysfs can't be read, every available processor is
+ * treated as a core of its own.
+ */
+public class CpuTopology {
+    private static final Logger logger = LoggerFactory.getLogger(CpuTopology.class);
+
+    private static final Path SYS_ROOT = Paths.get("/sys/devices/system");
+
+    public static final class Core {
+        public final int socket;
+        public final int node;
+        public final int coreId;
+        // Logical CPUs sharing the core (SMT siblings), lowest first
+        public final List<Integer> cpus;
+
+        Core(int socket, int node, int coreId, List<Integer> cpus) {
+            this.socket = socket;
+            this.node = node;
+            this.coreId = coreId;
+            this.cpus = Collections.unmodifiableList(cpus);
+        }
+
+        @Override
+        public String toString() {
+            return "socket " + socket + ", node " + node + ", core " + coreId + ", cpus " + cpus;
+        }
+    }
+
+    private final List<Core> cores;
+    private final boolean detected;
+
+    private CpuTopology(List<Core> cores, boolean detected) {
+        this.cores = Collections.unmodifiableList(cores);
+        this.detected = detected;
+    }
+
+    public static CpuTopology detect() {
+        return read(SYS_ROOT);
+    }
+
+    /**
+     * Reads the topology below {@code sysRoot}, a directory laid out like /sys/devices/system.
+     */
+    public static CpuTopology read(Path sysRoot) {
+        try {
+            Path cpuRoot = sysRoot.resolve("cpu");
+            List<Integer> online = parseCpuList(readLine(cpuRoot.resolve("online")));
+            Map<Integer, Integer> nodes = readNodes(sysRoot.resolve("node"));
+
+            Map<String, List<Integer>> siblings = new LinkedHashMap<>();
+            Map<String, int[]> coreInfo = new HashMap<>();
+            for (int cpu : online) {
+                Path topology = cpuRoot.resolve("cpu" + cpu).resolve("topology");
+                int socket = Integer.parseInt(readLine(topology.resolve("physical_package_id")));
+                int coreId = Integer.parseInt(readLine(topology.resolve("core_id")));
+                int die = Files.exists(topology.resolve("die_id")) ? Integer.parseInt(readLine(topology.resolve("die_id"))) : 0;
+
+                // core_id is only unique within a socket (and die)
+                String key = socket + "/" + die + "/" + coreId;
+                siblings.computeIfAbsent(key, k -> new ArrayList<>()).add(cpu);
+                coreInfo.putIfAbsent(key, new int[] { socket, nodes.getOrDefault(cpu, 0), coreId });
+            }
+
+            List<Core> cores = new ArrayList<>();
+            for (Map.Entry<String, List<Integer>> entry : siblings.entrySet()) {
+                int[] info = coreInfo.get(entry.getKey());
+                List<Integer> cpus = entry.getValue();
+                Collections.sort(cpus);
+                cores.add(new Core(info[0], info[1], info[2], cpus));
+            }
+
+            if (!cores.isEmpty()) {
+                return new CpuTopology(cores, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Unable to read the CPU topology from {}", sysRoot, e);
+        }
+
+        return fallback();
+    }
+
+    private static CpuTopology fallback() {
+        List<Core> cores = new ArrayList<>();
+        for (int cpu = 0; cpu < Runtime.getRuntime().availableProcessors(); cpu++) {
+            cores.add(new Core(0, 0, cpu, Collections.singletonList(cpu)));
+        }
+        return new CpuTopology(cores, false);
+    }
+
+    private static Map<Integer, Integer> readNodes(Path nodeRoot) throws IOException {
+        Map<Integer, Integer> nodes = new HashMap<>();
+        if (!Files.isDirectory(nodeRoot)) {
+            return nodes;
+        }
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(nodeRoot, "node[0-9]*")) {
+            for (Path entry : entries) {
+                int node = Integer.parseInt(entry.getFileName().toString().substring(4));
+                Path cpuList = entry.resolve("cpulist");
+                if (Files.exists(cpuList)) {
+                    for (int cpu : parseCpuList(readLine(cpuList))) {
+                        nodes.put(cpu, node);
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private static String readLine(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim();
+    }
+
+    /**
+     * Parses a Linux CPU list such as "0-3,8,10-11".
+     */
+    static List<Integer> parseCpuList(String list) {
+        List<Integer> cpus = new ArrayList<>();
+        if (list.isEmpty()) {
+            return cpus;
+        }
+
+        for (String part : list.split(",")) {
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                cpus.add(Integer.parseInt(part.trim()));
+            } else {
+                int last = Integer.parseInt(part.substring(dash + 1).trim());
+                for (int cpu = Integer.parseInt(part.substring(0, dash).trim()); cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        }
+        return cpus;
+    }
+
+    public List<Core> getCores() {
+        return cores;
+    }
+
+    public int getPhysicalCoreCount() {
+        return cores.size();
+    }
+
+    public int getLogicalCpuCount() {
+        int count = 0;
+        for (Core core : cores) {
+            count += core.cpus.size();
+        }
+        return count;
+    }
+
+    /**
+     * Whether the topology came from sysfs rather than the fallback.
+     */
+    public boolean isDetected() {
+        return detected;
+    }
+
+    /**
+     * Logical CPUs in the order workers should be placed on them: the first CPU of every physical core,
+     * alternating between NUMA nodes and sockets so the load (and memory traffic) is spread over all of
+     * them, then the SMT siblings in the same order.
+     */
+    public List<Integer> placementOrder() {
+        Map<String, List<Core>> byDomain = new LinkedHashMap<>();
+        for (Core core : cores) {
+            byDomain.computeIfAbsent(core.node + "/" + core.socket, d -> new ArrayList<>()).add(core);
+        }
+
+        List<Core> interleaved = new ArrayList<>();
+        for (int i = 0; interleaved.size() < cores.size(); i++) {
+            for (List<Core> domainCores : byDomain.values()) {
+                if (i < domainCores.size()) {
+                    interleaved.add(domainCores.get(i));
+                }
+            }
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int thread = 0; order.size() < getLogicalCpuCount(); thread++) {
+            for (Core core : interleaved) {
+                if (thread < core.cpus.size()) {
+                    order.add(core.cpus.get(thread));
+                }
+            }
+        }
+        return order;
+    }
+
+    @Override
+    public String toString() {
+        Map<Integer, Integer> sockets = new HashMap<>();
+        Map<Integer, Integer> nodes = new HashMap<>();
+        for (Core core : cores) {
+            sockets.merge(core.socket, 1, Integer::sum);
+            nodes.merge(core.node, 1, Integer::sum);
+        }
+        return getPhysicalCoreCount() + " physical cores (" + getLogicalCpuCount() + " logical CPUs) in "
+                + sockets.size() + " socket(s), " + nodes.size() + " NUMA node(s)" + (detected ? "" : ", topology not detected");
+    }
+}
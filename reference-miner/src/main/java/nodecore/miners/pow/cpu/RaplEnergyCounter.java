@@ -0,0 +1,103 @@
+package nodecore.miners.pow.cpu;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Package energy as reported by the Intel RAPL (or AMD equivalent) counters under
+ * /sys/class/powercap. Most systems only let root read them, in which case {@link #open} returns null.
+ */
+public class RaplEnergyCounter {
+    private static final Logger logger = LoggerFactory.getLogger(RaplEnergyCounter.class);
+
+    private static final Path POWERCAP_ROOT = Paths.get("/sys/class/powercap");
+
+    // One energy_uj file per package, with the value at which it wraps around
+    private final List<Path> counters;
+    private final long[] ranges;
+
+    private RaplEnergyCounter(List<Path> counters, long[] ranges) {
+        this.counters = counters;
+        this.ranges = ranges;
+    }
+
+    public static RaplEnergyCounter open() {
+        return open(POWERCAP_ROOT);
+    }
+
+    /**
+     * Opens the package-level counters below {@code powercapRoot}, a directory laid out like
+     * /sys/class/powercap, or returns null if there are none or they can't be read.
+     */
+    public static RaplEnergyCounter open(Path powercapRoot) {
+        if (!Files.isDirectory(powercapRoot)) {
+            return null;
+        }
+
+        List<Path> counters = new ArrayList<>();
+        List<Long> ranges = new ArrayList<>();
+        // Packages are intel-rapl:N; their subdomains (intel-rapl:N:M) are already included in them
+        try (DirectoryStream<Path> domains = Files.newDirectoryStream(powercapRoot, "intel-rapl:[0-9]*")) {
+            for (Path domain : domains) {
+                if (domain.getFileName().toString().indexOf(':') != domain.getFileName().toString().lastIndexOf(':')) {
+                    continue;
+                }
+
+                Path energy = domain.resolve("energy_uj");
+                readLong(energy);
+                counters.add(energy);
+                ranges.add(readLong(domain.resolve("max_energy_range_uj")));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("RAPL energy counters are not readable", e);
+            return null;
+        }
+
+        if (counters.isEmpty()) {
+            return null;
+        }
+
+        long[] rangeArray = new long[ranges.size()];
+        for (int i = 0; i < rangeArray.length; i++) {
+            rangeArray[i] = ranges.get(i);
+        }
+        return new RaplEnergyCounter(counters, rangeArray);
+    }
+
+    private static long readLong(Path path) throws IOException {
+        return Long.parseLong(new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim());
+    }
+
+    /**
+     * Reads every package counter, in microjoules.
+     */
+    public long[] read() throws IOException {
+        long[] values = new long[counters.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readLong(counters.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Returns the energy used by all packages between two {@link #read} results, in joules, allowing for
+     * each counter wrapping around once.
+     */
+    public double joulesBetween(long[] start, long[] end) {
+        long microjoules = 0;
+        for (int i = 0; i < start.length; i++) {
+            long delta = end[i] - start[i];
+            microjoules += delta >= 0 ? delta : delta + ranges[i];
+        }
+        return microjoules / 1e6;
+    }
+}
@@ -0,0 +1,74 @@
+package nodecore.miners.pow.cpu;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pins the calling thread to a CPU and lowers its scheduling priority on Linux, using the taskset and
+ * renice tools on the thread's kernel id. Everything here is best effort: on other systems, or without
+ * the tools, the calls just return false.
+ */
+public final class ThreadAffinity {
+    private static final Logger logger = LoggerFactory.getLogger(ThreadAffinity.class);
+
+    private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+    private static final File DEV_NULL = new File("/dev/null");
+
+    private ThreadAffinity() { }
+
+    /**
+     * Returns the kernel id of the calling thread, or -1 if it can't be determined.
+     */
+    public static int currentThreadId() {
+        try {
+            // Links to <pid>/task/<tid>
+            Path target = Files.readSymbolicLink(THREAD_SELF);
+            return Integer.parseInt(target.getFileName().toString());
+        } catch (IOException | UnsupportedOperationException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Restricts the calling thread to the given logical CPU.
+     */
+    public static boolean pinCurrentThread(int cpu) {
+        int tid = currentThreadId();
+        return tid > 0 && run("taskset", "-p", "-c", Integer.toString(cpu), Integer.toString(tid));
+    }
+
+    /**
+     * Sets the nice value of the calling thread; higher is lower priority.
+     */
+    public static boolean setCurrentThreadNice(int nice) {
+        int tid = currentThreadId();
+        return tid > 0 && run("renice", "-n", Integer.toString(nice), "-p", Integer.toString(tid));
+    }
+
+    private static boolean run(String... command) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.to(DEV_NULL))
+                    .start();
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroy();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            logger.debug("Unable to run {}", command[0], e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package nodecore.miners.pow.cpu;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Decides how many mining threads to run and where: by default one per physical core, placed on the
+ * first CPU of each core and spread over the sockets before any SMT sibling is used.
+ *
+ * Each mining thread calls {@link #onWorkerStarted} from its own thread to be pinned (if enabled) and
+ * moved to a low scheduling priority, so the I/O thread always gets the CPU when it needs it.
+ */
+public class WorkerScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerScheduler.class);
+
+    // Nice value for mining threads; the I/O thread stays at the default of 0
+    public static final int LOW_PRIORITY_NICE = 10;
+
+    private final CpuTopology topology;
+    private final List<Integer> placement;
+    private final boolean pinThreads;
+    private final boolean lowPriority;
+
+    private volatile boolean pinningFailed = false;
+    private volatile boolean priorityFailed = false;
+
+    public WorkerScheduler(CpuTopology topology, boolean pinThreads, boolean lowPriority) {
+        this.topology = topology;
+        this.placement = topology.placementOrder();
+        this.pinThreads = pinThreads;
+        this.lowPriority = lowPriority;
+    }
+
+    public CpuTopology getTopology() {
+        return topology;
+    }
+
+    /**
+     * One worker per physical core, but never more than the processors the JVM may use (for example
+     * under a container CPU limit).
+     */
+    public int defaultWorkerCount() {
+        return Math.max(1, Math.min(topology.getPhysicalCoreCount(), Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * The most workers worth running: one per logical CPU the JVM may use.
+     */
+    public int maxWorkerCount() {
+        return Math.max(1, Math.min(topology.getLogicalCpuCount(), Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * The logical CPU for the worker with the given index. Beyond one worker per logical CPU the
+     * placement wraps around.
+     */
+    public int cpuFor(int workerIndex) {
+        return placement.get(workerIndex % placement.size());
+    }
+
+    /**
+     * Applies placement and priority to the calling thread, which must be the worker's own.
+     */
+    public void onWorkerStarted(int workerIndex) {
+        if (lowPriority) {
+            Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+            if (!priorityFailed && !ThreadAffinity.setCurrentThreadNice(LOW_PRIORITY_NICE)) {
+                priorityFailed = true;
+                logger.info("Unable to lower the priority of mining threads; they run at normal priority");
+            }
+        }
+
+        if (pinThreads && !pinningFailed) {
+            int cpu = cpuFor(workerIndex);
+            if (ThreadAffinity.pinCurrentThread(cpu)) {
+                logger.debug("Worker {} pinned to CPU {}", workerIndex, cpu);
+            } else {
+                pinningFailed = true;
+                logger.info("Unable to pin mining threads to CPUs (is taskset installed?); leaving placement to the OS");
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package nodecore.miners.pow.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket latency histogram with power-of-two bucket bounds from 64 us to about 8.6 s.
+ */
+public class LatencyHistogram {
+    private static final int FIRST_BOUND_SHIFT = 16; // 2^16 ns ~ 65 us
+    private static final int BOUNDS = 18;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS + 1);
+    private final LongAdder sumNanos = new LongAdder();
+    private volatile long maxNanos;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        // Index of the first bound >= nanos, with everything above the last bound in the overflow bucket
+        int bucket = nanos <= 1L << FIRST_BOUND_SHIFT ? 0 : 64 - Long.numberOfLeadingZeros(nanos - 1) - FIRST_BOUND_SHIFT;
+        buckets.incrementAndGet(Math.min(bucket, BOUNDS));
+        sumNanos.add(nanos);
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i <= BOUNDS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : sumNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxMillis() {
+        return maxNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns an upper estimate of the given quantile (0 .. 1): the bound of the bucket it falls in, or
+     * the maximum if that is lower or the quantile falls in the overflow bucket.
+     */
+    public double getQuantileMillis(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS; i++) {
+            cumulative += buckets.get(i);
+            if (cumulative >= rank) {
+                return Math.min((1L << (FIRST_BOUND_SHIFT + i)) / (double) TimeUnit.MILLISECONDS.toNanos(1), getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Writes the histogram in the Prometheus text format, in seconds.
+     */
+    void writePrometheus(StringBuilder out, String name, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS; i++) {
+            cumulative += buckets.get(i);
+            out.append(name).append("_bucket{le=\"").append((1L << (FIRST_BOUND_SHIFT + i)) / 1e9).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        cumulative += buckets.get(BOUNDS);
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum ").append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count ").append(cumulative).append('\n');
+    }
+}
@@ -0,0 +1,340 @@
+package nodecore.miners.pow.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process registry of the miner's live numbers: per-thread hash rates, share outcomes per job,
+ * submit round-trip latency and job-switch latency.
+ *
+ * Mining threads only touch their own {@link WorkerMetrics} and striped share counters, so recording
+ * adds no contention to the hashing loop. The registry outlives individual connections.
+ */
+public class MinerMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(MinerMetrics.class);
+
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    // Per-job counters are kept for this many of the most recent jobs
+    public static final int RECENT_JOBS = 16;
+
+    private final List<WorkerMetrics> workers = new CopyOnWriteArrayList<>();
+    private final ShareCounters totals = new ShareCounters();
+    private final Map<String, ShareCounters> jobs = new ConcurrentHashMap<>();
+    private final Deque<String> jobOrder = new ArrayDeque<>();
+    private final LatencyHistogram submitLatency = new LatencyHistogram();
+    private final LatencyHistogram jobSwitchLatency = new LatencyHistogram();
+    private final LatencyHistogram firstHashLatency = new LatencyHistogram();
+    private final AtomicLong sessionStartedAt = new AtomicLong(NOT_STARTED);
+    private volatile double processFirstHashSeconds = Double.NaN;
+
+    // The job switch still in progress for each account, until all its workers have switched
+    private final Map<String, JobSwitch> pendingSwitches = new ConcurrentHashMap<>();
+    private final LongAdder poolSwitches = new LongAdder();
+    private final Map<String, String> activePools = new ConcurrentHashMap<>();
+    private final Map<String, Integer> accountWorkers = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metrics for the mining thread with the given index, creating them on first use.
+     * Counters are cumulative across reconnects, as each new worker with the same index reuses them.
+     */
+    public synchronized WorkerMetrics worker(int index) {
+        while (workers.size() <= index) {
+            workers.add(new WorkerMetrics(workers.size()));
+        }
+        return workers.get(index);
+    }
+
+    public List<WorkerMetrics> getWorkers() {
+        return new ArrayList<>(workers);
+    }
+
+    public double getHashRate() {
+        double total = 0;
+        for (WorkerMetrics worker : workers) {
+            total += worker.getHashRate();
+        }
+        return total;
+    }
+
+    public ShareCounters getTotals() {
+        return totals;
+    }
+
+    /**
+     * Share counters for a recent job, or null if the job is unknown or has aged out.
+     */
+    public ShareCounters getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public LatencyHistogram getSubmitLatency() {
+        return submitLatency;
+    }
+
+    public LatencyHistogram getJobSwitchLatency() {
+        return jobSwitchLatency;
+    }
+
+    public LatencyHistogram getFirstHashLatency() {
+        return firstHashLatency;
+    }
+
+    /**
+     * Seconds from JVM start to the first hash, or NaN before the first hash.
+     */
+    public double getProcessFirstHashSeconds() {
+        return processFirstHashSeconds;
+    }
+
+    /**
+     * Marks the start of a mining session (connecting to a pool), from which the time to the first hash
+     * is measured.
+     */
+    public void sessionStarted() {
+        sessionStartedAt.set(System.nanoTime());
+    }
+
+    /**
+     * Called by every mining thread after its first chunk of a session; only the first call after
+     * {@link #sessionStarted} is recorded.
+     */
+    public void firstHash() {
+        long startedAt = sessionStartedAt.getAndSet(NOT_STARTED);
+        if (startedAt == NOT_STARTED) {
+            return;
+        }
+
+        long latency = System.nanoTime() - startedAt;
+        firstHashLatency.record(latency);
+
+        if (Double.isNaN(processFirstHashSeconds)) {
+            long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            processFirstHashSeconds = sinceJvmStart / 1000.0;
+            logger.info("First hash {} ms after connecting, {} ms after startup", TimeUnit.NANOSECONDS.toMillis(latency), sinceJvmStart);
+        } else {
+            logger.info("First hash {} ms after reconnecting", TimeUnit.NANOSECONDS.toMillis(latency));
+        }
+    }
+
+    /**
+     * Records that a job arrived from an account's pool and is being handed to the account's
+     * {@code workerCount} workers. {@code work} is the object the workers will report through
+     * {@link #workerSwitched}. Each account's switch is timed on its own, so a job for one account
+     * doesn't cut short the switch of another.
+     */
+    public void jobReceived(String account, String jobId, Object work, int workerCount) {
+        countersFor(jobId);
+        if (workerCount > 0) {
+            pendingSwitches.put(account, new JobSwitch(work, System.nanoTime(), workerCount));
+        } else {
+            pendingSwitches.remove(account);
+        }
+    }
+
+    /**
+     * Called by a mining thread once it starts hashing {@code work}. When the last worker of the
+     * account has switched, the time since {@link #jobReceived} is recorded.
+     */
+    public void workerSwitched(Object work) {
+        // One entry per account, so a scan is cheaper than another map keyed by work
+        for (Map.Entry<String, JobSwitch> entry : pendingSwitches.entrySet()) {
+            JobSwitch pending = entry.getValue();
+            if (pending.work == work) {
+                if (pending.remaining.decrementAndGet() == 0) {
+                    jobSwitchLatency.record(System.nanoTime() - pending.receivedAt);
+                    pendingSwitches.remove(entry.getKey(), pending);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records that an account's workers were moved to another pool (or, the first time, to any pool).
+     */
+    public void poolSwitched(String account, String pool) {
+        if (activePools.put(account, pool) != null) {
+            poolSwitches.increment();
+        }
+    }
+
+    public String getActivePool(String account) {
+        return activePools.get(account);
+    }
+
+    /**
+     * Records how many workers are currently mining for an account.
+     */
+    public void accountWorkers(String account, int workerCount) {
+        accountWorkers.put(account, workerCount);
+    }
+
+    public void shareFound(String jobId) {
+        totals.found.increment();
+        countersFor(jobId).found.increment();
+    }
+
+    public void shareAccepted(String jobId, long latencyNanos) {
+        submitLatency.record(latencyNanos);
+        totals.accepted.increment();
+        countersFor(jobId).accepted.increment();
+    }
+
+    public void shareRejected(String jobId, long latencyNanos) {
+        submitLatency.record(latencyNanos);
+        totals.rejected.increment();
+        countersFor(jobId).rejected.increment();
+    }
+
+    public void shareStale(String jobId, long latencyNanos) {
+        submitLatency.record(latencyNanos);
+        totals.stale.increment();
+        countersFor(jobId).stale.increment();
+    }
+
+    public void shareTimedOut(String jobId) {
+        totals.timedOut.increment();
+        countersFor(jobId).timedOut.increment();
+    }
+
+    public void shareDroppedStale(String jobId) {
+        totals.droppedStale.increment();
+        countersFor(jobId).droppedStale.increment();
+    }
+
+    public void shareDroppedDuplicate(String jobId) {
+        totals.droppedDuplicate.increment();
+        countersFor(jobId).droppedDuplicate.increment();
+    }
+
+    public void shareDroppedUnsent(String jobId) {
+        totals.droppedUnsent.increment();
+        countersFor(jobId).droppedUnsent.increment();
+    }
+
+    private ShareCounters countersFor(String jobId) {
+        ShareCounters counters = jobs.get(jobId);
+        if (counters != null) {
+            return counters;
+        }
+
+        synchronized (jobOrder) {
+            counters = jobs.get(jobId);
+            if (counters == null) {
+                counters = new ShareCounters();
+                jobs.put(jobId, counters);
+                jobOrder.addLast(jobId);
+                while (jobOrder.size() > RECENT_JOBS) {
+                    jobs.remove(jobOrder.removeFirst());
+                }
+            }
+            return counters;
+        }
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+
+        out.append("# HELP veriblock_miner_hashes_total Hashes computed by each mining thread.\n");
+        out.append("# TYPE veriblock_miner_hashes_total counter\n");
+        for (WorkerMetrics worker : workers) {
+            out.append("veriblock_miner_hashes_total{worker=\"").append(worker.getIndex()).append("\"} ")
+                    .append(worker.getHashes()).append('\n');
+        }
+
+        out.append("# HELP veriblock_miner_hashrate Hashes per second of each mining thread.\n");
+        out.append("# TYPE veriblock_miner_hashrate gauge\n");
+        for (WorkerMetrics worker : workers) {
+            out.append("veriblock_miner_hashrate{worker=\"").append(worker.getIndex()).append("\"} ")
+                    .append(worker.getHashRate()).append('\n');
+        }
+
+        out.append("# HELP veriblock_miner_shares_total Shares by outcome, across all jobs.\n");
+        out.append("# TYPE veriblock_miner_shares_total counter\n");
+        writeShares(out, "veriblock_miner_shares_total{", totals);
+
+        out.append("# HELP veriblock_miner_job_shares_total Shares by outcome for the most recent jobs.\n");
+        out.append("# TYPE veriblock_miner_job_shares_total counter\n");
+        for (Map.Entry<String, ShareCounters> job : jobs.entrySet()) {
+            writeShares(out, "veriblock_miner_job_shares_total{job=\"" + escapeLabel(job.getKey()) + "\",", job.getValue());
+        }
+
+        submitLatency.writePrometheus(out, "veriblock_miner_submit_rtt_seconds",
+                "Time from writing a share to receiving the pool's answer.");
+        jobSwitchLatency.writePrometheus(out, "veriblock_miner_job_switch_seconds",
+                "Time from receiving mining.notify to every mining thread hashing the new job.");
+        firstHashLatency.writePrometheus(out, "veriblock_miner_first_hash_seconds",
+                "Time from starting a pool session to the first hash.");
+
+        out.append("# HELP veriblock_miner_active_pool The pool currently being mined for each account.\n");
+        out.append("# TYPE veriblock_miner_active_pool gauge\n");
+        for (Map.Entry<String, String> pool : activePools.entrySet()) {
+            out.append("veriblock_miner_active_pool{account=\"").append(escapeLabel(pool.getKey()))
+                    .append("\",pool=\"").append(escapeLabel(pool.getValue())).append("\"} 1\n");
+        }
+
+        out.append("# HELP veriblock_miner_account_workers Mining threads currently working for each account.\n");
+        out.append("# TYPE veriblock_miner_account_workers gauge\n");
+        for (Map.Entry<String, Integer> account : accountWorkers.entrySet()) {
+            out.append("veriblock_miner_account_workers{account=\"").append(escapeLabel(account.getKey()))
+                    .append("\"} ").append(account.getValue()).append('\n');
+        }
+
+        out.append("# HELP veriblock_miner_pool_switches_total Failovers and failbacks between pools.\n");
+        out.append("# TYPE veriblock_miner_pool_switches_total counter\n");
+        out.append("veriblock_miner_pool_switches_total ").append(poolSwitches.sum()).append('\n');
+
+        double processFirstHash = processFirstHashSeconds;
+        if (!Double.isNaN(processFirstHash)) {
+            out.append("# HELP veriblock_miner_startup_to_first_hash_seconds Time from JVM start to the first hash.\n");
+            out.append("# TYPE veriblock_miner_startup_to_first_hash_seconds gauge\n");
+            out.append("veriblock_miner_startup_to_first_hash_seconds ").append(processFirstHash).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    private static void writeShares(StringBuilder out, String prefix, ShareCounters counters) {
+        out.append(prefix).append("result=\"found\"} ").append(counters.getFound()).append('\n');
+        out.append(prefix).append("result=\"accepted\"} ").append(counters.getAccepted()).append('\n');
+        out.append(prefix).append("result=\"rejected\"} ").append(counters.getRejected()).append('\n');
+        out.append(prefix).append("result=\"stale\"} ").append(counters.getStale()).append('\n');
+        out.append(prefix).append("result=\"timeout\"} ").append(counters.getTimedOut()).append('\n');
+        out.append(prefix).append("result=\"dropped_stale\"} ").append(counters.getDroppedStale()).append('\n');
+        out.append(prefix).append("result=\"dropped_duplicate\"} ").append(counters.getDroppedDuplicate()).append('\n');
+        out.append(prefix).append("result=\"dropped_unsent\"} ").append(counters.getDroppedUnsent()).append('\n');
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class JobSwitch {
+        private final Object work;
+        private final long receivedAt;
+        private final AtomicInteger remaining;
+
+        private JobSwitch(Object work, long receivedAt, int workerCount) {
+            this.work = work;
+            this.receivedAt = receivedAt;
+            this.remaining = new AtomicInteger(workerCount);
+        }
+    }
+}
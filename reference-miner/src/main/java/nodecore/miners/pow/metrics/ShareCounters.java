@@ -0,0 +1,69 @@
+package nodecore.miners.pow.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Share outcomes for one job, or for all jobs together. Striped so mining threads reporting finds at
+ * the same time don't contend.
+ */
+public class ShareCounters {
+    final LongAdder found = new LongAdder();
+    final LongAdder accepted = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder stale = new LongAdder();
+    final LongAdder timedOut = new LongAdder();
+    final LongAdder droppedStale = new LongAdder();
+    final LongAdder droppedDuplicate = new LongAdder();
+    final LongAdder droppedUnsent = new LongAdder();
+
+    public long getFound() {
+        return found.sum();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Rejected for any reason other than being stale.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getStale() {
+        return stale.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Found for a job the pool had already dropped, and so never sent.
+     */
+    public long getDroppedStale() {
+        return droppedStale.sum();
+    }
+
+    /**
+     * Found again after being sent once, and so not sent again.
+     */
+    public long getDroppedDuplicate() {
+        return droppedDuplicate.sum();
+    }
+
+    /**
+     * Lost because the connection was closed or too backed up to take them.
+     */
+    public long getDroppedUnsent() {
+        return droppedUnsent.sum();
+    }
+
+    @Override
+    public String toString() {
+        return getFound() + " found, " + getAccepted() + " accepted, " + getRejected() + " rejected, "
+                + getStale() + " stale, " + getTimedOut() + " timed out, " + getDroppedStale() + " stale and "
+                + getDroppedDuplicate() + " duplicate not sent, " + getDroppedUnsent() + " lost unsent";
+    }
+}
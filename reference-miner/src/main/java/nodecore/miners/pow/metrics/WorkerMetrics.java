@@ -0,0 +1,65 @@
+package nodecore.miners.pow.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash counters for one mining thread.
+ *
+ * Only the owning thread writes, so updates are plain reads plus ordered stores with no contention;
+ * other threads only read. The hash rate is refreshed by the owner about once a second.
+ */
+public class WorkerMetrics {
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int index;
+    private final AtomicLong hashes = new AtomicLong();
+    private volatile double hashRate;
+    private volatile long rateUpdatedAt;
+
+    // Owner-thread state for the current rate window
+    private long windowStart = System.nanoTime();
+    private long windowHashes;
+
+    WorkerMetrics(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Counts hashes just computed. Must only be called by the owning mining thread.
+     */
+    public void addHashes(int count) {
+        long total = hashes.get() + count;
+        hashes.lazySet(total);
+
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            // A longer window spans time spent idle (waiting for work or reconnecting), so it is discarded
+            if (elapsed < 2 * RATE_WINDOW_NANOS) {
+                hashRate = (total - windowHashes) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+                rateUpdatedAt = now;
+            }
+            windowStart = now;
+            windowHashes = total;
+        }
+    }
+
+    public long getHashes() {
+        return hashes.get();
+    }
+
+    /**
+     * Hashes per second over the last completed window, or zero if the thread has stopped hashing.
+     */
+    public double getHashRate() {
+        if (System.nanoTime() - rateUpdatedAt > 3 * RATE_WINDOW_NANOS) {
+            return 0;
+        }
+        return hashRate;
+    }
+}
@@ -0,0 +1,195 @@
+package nodecore.miners.pow.stratum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A Stratum connection using a blocking socket, with one thread reading and one writing. These are
+ * virtual threads where the JDK supports them (see {@link VirtualThreads}), so each connection costs
+ * no platform thread of its own.
+ *
+ * Listener callbacks, {@link #execute} and {@link #schedule} still all run on the shared
+ * {@link NioEventLoop} thread, in the order the events happened, so the pool and account state behind
+ * the listener stays confined to one thread whichever transport is used. {@link #close} closes the
+ * socket, which unblocks the reader, and interrupts the writer, so both threads end promptly.
+ */
+public class BlockingStratumTransport implements StratumTransport {
+    private static final Logger logger = LoggerFactory.getLogger(BlockingStratumTransport.class);
+
+    public static final int CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+
+    private final NioEventLoop loop;
+    private final InetSocketAddress address;
+    private final byte[] readBuffer;
+    private final BlockingQueue<ByteBuffer> writeQueue;
+    private final Socket socket = new Socket();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private FrameListener listener;
+    private volatile Thread writer;
+
+    public BlockingStratumTransport(NioEventLoop loop, InetSocketAddress address) {
+        this(loop, address, NioStratumTransport.DEFAULT_READ_BUFFER_SIZE, NioStratumTransport.DEFAULT_WRITE_QUEUE_CAPACITY);
+    }
+
+    public BlockingStratumTransport(NioEventLoop loop, InetSocketAddress address, int readBufferSize, int writeQueueCapacity) {
+        this.loop = loop;
+        this.address = address;
+        this.readBuffer = new byte[readBufferSize];
+        this.writeQueue = new ArrayBlockingQueue<>(writeQueueCapacity);
+    }
+
+    @Override
+    public void open(FrameListener listener) {
+        this.listener = listener;
+        VirtualThreads.newThread("stratum-read-" + address, this::read).start();
+    }
+
+    @Override
+    public boolean send(ByteBuffer frame) {
+        return !closed.get() && writeQueue.offer(frame);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        loop.execute(task);
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        loop.schedule(task, delay, unit);
+    }
+
+    @Override
+    public void close() {
+        close(null);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed.get();
+    }
+
+    private void read() {
+        InputStream in;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+            in = socket.getInputStream();
+        } catch (IOException e) {
+            close(e);
+            return;
+        }
+
+        logger.info("Connected to {}", address);
+        Thread writer = VirtualThreads.newThread("stratum-write-" + address, this::write);
+        this.writer = writer;
+        writer.start();
+        loop.execute(listener::onConnected);
+
+        try {
+            int end = 0;
+            int scanPosition = 0;
+            while (!closed.get()) {
+                int read = in.read(readBuffer, end, readBuffer.length - end);
+                if (read < 0) {
+                    throw new EOFException("Connection closed by " + address);
+                }
+                end += read;
+
+                int start = 0;
+                for (int i = scanPosition; i < end; i++) {
+                    if (readBuffer[i] != '\n') {
+                        continue;
+                    }
+
+                    int frameEnd = i > start && readBuffer[i - 1] == '\r' ? i - 1 : i;
+                    if (frameEnd > start) {
+                        // Copied, as the buffer is reused before the loop thread gets to the frame
+                        ByteBuffer frame = ByteBuffer.wrap(Arrays.copyOfRange(readBuffer, start, frameEnd));
+                        loop.execute(() -> deliver(frame));
+                    }
+                    start = i + 1;
+                }
+
+                if (start == 0 && end == readBuffer.length) {
+                    throw new IOException("Incoming line exceeds " + readBuffer.length + " bytes");
+                }
+
+                // Keep the partial line at the head of the buffer
+                System.arraycopy(readBuffer, start, readBuffer, 0, end - start);
+                end -= start;
+                scanPosition = end;
+            }
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void deliver(ByteBuffer frame) {
+        // Frames read just before a close are dropped, as they would be by the selector
+        if (!closed.get()) {
+            listener.onFrame(frame);
+        }
+    }
+
+    private void write() {
+        try {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (!closed.get()) {
+                ByteBuffer frame = writeQueue.take();
+                do {
+                    if (frame.hasArray()) {
+                        out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+                    } else {
+                        byte[] bytes = new byte[frame.remaining()];
+                        frame.duplicate().get(bytes);
+                        out.write(bytes);
+                    }
+                } while ((frame = writeQueue.poll()) != null);
+
+                // Everything queued so far goes out together
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            // Woken by close
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void close(Throwable cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing connection to {}", address, e);
+        }
+        Thread writer = this.writer;
+        if (writer != null) {
+            writer.interrupt();
+        }
+        writeQueue.clear();
+
+        if (listener != null) {
+            loop.execute(() -> listener.onClosed(cause));
+        }
+    }
+}
@@ -1,76 +1,237 @@
 package nodecore.miners.pow.stratum;
 
+import nodecore.miners.pow.cpu.WorkerScheduler;
+import nodecore.miners.pow.metrics.MinerMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigInteger;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the mining threads and shares them between one or more {@link MiningAccount}s by weight.
+ *
+ * Each worker mines for one account at a time. Every {@link #REBALANCE_INTERVAL_MILLIS} the scheduler
+ * gives each available account the whole number of workers its weight earns, and the workers left
+ * over to the accounts furthest behind on the worker time they are due. Over time every account gets
+ * its weighted share of the hash capacity, even when there are fewer workers than accounts. An
+ * account with no usable pool earns nothing and its workers go to the others, so no core sits idle.
+ * Scheduling runs on the event loop thread.
+ */
 public class JobManager {
     private static final Logger logger = LoggerFactory.getLogger(JobManager.class);
-    private final StratumClient client;
 
-    private long extraNonce;
+    public static final long REBALANCE_INTERVAL_MILLIS = 5 * 1000;
+
+    private final NioEventLoop loop;
+    private final MinerMetrics metrics;
+    private final boolean extraNonceRolling;
+    private final List<MiningAccount> accounts = new ArrayList<>();
+    private WorkerScheduler scheduler;
+    private int chunkSize = StratumMiningThread.DEFAULT_CHUNK_SIZE;
 
     private final List<StratumMiningThread> workers = new ArrayList<>();
+    private volatile WorkAssignments assignments;
+    private volatile boolean running = false;
+
+    // Only touched on the event loop thread
+    private MiningAccount[] assigned;
+    private long lastRebalanceAt;
+
+    public JobManager(NioEventLoop loop, MinerMetrics metrics, boolean extraNonceRolling) {
+        this.loop = loop;
+        this.metrics = metrics;
+        this.extraNonceRolling = extraNonceRolling;
+    }
+
+    /**
+     * Adds an account mined on {@code pools}, in order of preference, and given workers in proportion
+     * to {@code weight}. Must be called before {@link #start}.
+     */
+    public MiningAccount addAccount(String name, int weight, List<PoolConnection> pools) {
+        MiningAccount account = new MiningAccount(name, weight, pools, metrics, extraNonceRolling,
+                this::onFirstJob, () -> loop.execute(this::rebalance));
+        accounts.add(account);
+        return account;
+    }
+
+    /**
+     * Sets the scheduler applied to workers created by later calls to {@link #start}.
+     */
+    public void setWorkerScheduler(WorkerScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
 
-    public JobManager(StratumClient client) {
-        this.client = client;
-        this.client.setSubscribeHandler(this::onSubscribed);
-        this.client.setJobHandler(this::onJob);
-        this.client.setDifficultyChangedHandler(this::onDifficultyChanged);
+    /**
+     * Sets the number of nonces each worker hashes between checks for new work, for workers created by
+     * later calls to {@link #start}.
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
     }
 
-    public void start(int workerCount) throws InterruptedException {
+    /**
+     * Starts {@code workerCount} workers, which wait for the first job, and connects every account to
+     * its pools.
+     */
+    public void start(int workerCount) {
+        if (accounts.isEmpty()) {
+            throw new IllegalStateException("At least one account is required!");
+        }
         resetWorkers();
 
+        running = true;
+        metrics.sessionStarted();
         logger.info("Provisioning {} workers", workerCount);
         synchronized (workers) {
+            assignments = new WorkAssignments(workerCount, accounts.get(0).getBroadcast());
+            loop.execute(() -> {
+                assigned = new MiningAccount[workerCount];
+                lastRebalanceAt = System.nanoTime();
+            });
+
             for (int i = 0; i < workerCount; i++) {
-                StratumMiningThread worker = new StratumMiningThread(this::onShareFound);
+                StratumMiningThread worker = new StratumMiningThread(this::onShareFound, assignments, metrics, i);
+                worker.setScheduler(scheduler);
+                worker.setChunkSize(chunkSize);
                 workers.add(worker);
             }
+
+            for (StratumMiningThread worker : workers) {
+                worker.start();
+            }
+        }
+
+        for (MiningAccount account : accounts) {
+            account.start(workerCount);
         }
+        loop.schedule(this::reevaluate, REBALANCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     public void shutdown() {
+        running = false;
+        for (MiningAccount account : accounts) {
+            account.shutdown();
+        }
         resetWorkers();
     }
 
-    private void onSubscribed(long extraNonce, int size) {
-        this.extraNonce = extraNonce;
-        synchronized (workers) {
-            for (int i = 0; i < workers.size(); i++) {
-                logger.info("Starting worker");
-                workers.get(i).setExtraNonce(extraNonce + (i * 10));
-                workers.get(i).start();
-            }
+    private void onFirstJob() {
+        WorkAssignments current = assignments;
+        if (current != null) {
+            current.wake();
         }
     }
 
-    private void onJob(StratumJob job) {
-        synchronized (workers) {
-            for (StratumMiningThread worker : workers) {
-                worker.setJob(job);
-            }
+    /**
+     * Runs periodically, as pool health also changes with time (jobs age, benched pools come back,
+     * failback delays pass) and accounts sharing the workers are due their turns.
+     */
+    private void reevaluate() {
+        if (!running) {
+            return;
+        }
+
+        for (MiningAccount account : accounts) {
+            account.selectPool();
         }
+        rebalance();
+        loop.schedule(this::reevaluate, REBALANCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
-    private void onDifficultyChanged(BigInteger difficulty) {
-        synchronized (workers) {
-            for (StratumMiningThread worker : workers) {
-                worker.setDifficulty(difficulty);
+    /**
+     * Settles the worker time used since the last call and hands the workers out again.
+     */
+    private void rebalance() {
+        if (!running || assigned == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        double elapsed = (now - lastRebalanceAt) / 1e9;
+        lastRebalanceAt = now;
+
+        List<MiningAccount> available = new ArrayList<>();
+        int totalWeight = 0;
+        for (MiningAccount account : accounts) {
+            if (account.isAvailable()) {
+                available.add(account);
+                totalWeight += account.getWeight();
+            }
+        }
+
+        int workerCount = assigned.length;
+        for (MiningAccount account : assigned) {
+            if (account != null) {
+                account.usedSeconds += elapsed;
             }
         }
+        for (MiningAccount account : available) {
+            account.entitledSeconds += elapsed * workerCount * account.getWeight() / totalWeight;
+        }
+
+        if (available.isEmpty()) {
+            // Nothing to mine anywhere; leave the workers on their last work
+            return;
+        }
+
+        // Whole workers by weight, then one more each for the accounts most owed until none are left
+        int[] counts = new int[available.size()];
+        int remaining = workerCount;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = workerCount * available.get(i).getWeight() / totalWeight;
+            remaining -= counts[i];
+        }
+        List<MiningAccount> byCredit = new ArrayList<>(available);
+        byCredit.sort((a, b) -> Double.compare(b.entitledSeconds - b.usedSeconds, a.entitledSeconds - a.usedSeconds));
+        for (int i = 0; remaining > 0; i = (i + 1) % byCredit.size(), remaining--) {
+            counts[available.indexOf(byCredit.get(i))]++;
+        }
+
+        assign(available, counts);
     }
 
-    private void onShareFound(StratumJob job, Long extraNonce, byte[] solution) {
-        ByteBuffer buffer = ByteBuffer.wrap(solution);
+    /**
+     * Gives account i of {@code available} {@code counts[i]} workers, moving as few as possible.
+     */
+    private void assign(List<MiningAccount> available, int[] counts) {
+        int[] open = counts.clone();
+        boolean[] keep = new boolean[assigned.length];
+        for (int worker = 0; worker < assigned.length; worker++) {
+            int index = available.indexOf(assigned[worker]);
+            if (index >= 0 && open[index] > 0) {
+                open[index]--;
+                keep[worker] = true;
+            }
+        }
+
+        int next = 0;
+        for (int worker = 0; worker < assigned.length; worker++) {
+            if (keep[worker]) {
+                continue;
+            }
+            while (open[next] == 0) {
+                next++;
+            }
+            open[next]--;
+            assigned[worker] = available.get(next);
+            assignments.assign(worker, assigned[worker].getBroadcast());
+        }
+
+        for (MiningAccount account : accounts) {
+            int index = available.indexOf(account);
+            int count = index >= 0 ? counts[index] : 0;
+            account.setAssignedWorkers(count);
+            metrics.accountWorkers(account.getName(), count);
+            logger.debug("Account {}: {} workers, {} of {} worker-seconds used", account, count,
+                    String.format("%.1f", account.usedSeconds), String.format("%.1f", account.entitledSeconds));
+        }
+    }
 
-        client.submitShare(job.jobId, extraNonce, buffer.getInt(52), buffer.getInt(60));
+    private void onShareFound(StratumClient client, PreparedHeader work, Integer nonce) {
+        metrics.shareFound(work.job.jobId);
+        client.submitShare(work.job.jobId, work.getExtraNonce(), work.getTimestamp(), nonce);
     }
 
     private void resetWorkers() {
@@ -0,0 +1,54 @@
+package nodecore.miners.pow.stratum;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes a job's merkle root for one extra-nonce after another without allocating.
+ *
+ * The root is SHA-256(SHA-256(metapackage merkle, extra-nonce), tx root) trimmed to 16 bytes. The tx
+ * root is cached on the job, so each extra-nonce costs two SHA-256 compressions on a reused digest.
+ * Not thread-safe; each mining thread holds its own.
+ */
+public class MerkleRootCalculator {
+    private static final int SHA256_SIZE = 32;
+
+    private final MessageDigest digest;
+    private final byte[] extraNonceBytes = new byte[8];
+    private final byte[] metapackage = new byte[SHA256_SIZE];
+    private final byte[] root = new byte[SHA256_SIZE];
+
+    public MerkleRootCalculator() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);  // Can't happen.
+        }
+    }
+
+    /**
+     * Writes the 16-byte merkle root of {@code job} with {@code extraNonce} to {@code output} at
+     * {@code offset}.
+     */
+    public void calculate(StratumJob job, long extraNonce, byte[] output, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            extraNonceBytes[i] = (byte) extraNonce;
+            extraNonce >>>= 8;
+        }
+
+        try {
+            digest.update(job.getMetapackageMerkle());
+            digest.update(extraNonceBytes);
+            digest.digest(metapackage, 0, SHA256_SIZE);
+
+            digest.update(metapackage);
+            digest.update(job.getTxRoot());
+            digest.digest(root, 0, SHA256_SIZE);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);  // The buffers are always large enough
+        }
+
+        System.arraycopy(root, 0, output, offset, StratumJob.MERKLE_ROOT_SIZE);
+    }
+}
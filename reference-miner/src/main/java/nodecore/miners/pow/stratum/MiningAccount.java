@@ -0,0 +1,188 @@
+package nodecore.miners.pow.stratum;
+
+import nodecore.miners.pow.metrics.MinerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One payout account: a username mined on an ordered list of pools, with its own {@link WorkBroadcast}
+ * for the workers the {@link JobManager} assigns to it.
+ *
+ * Every pool is kept connected and subscribed, and the first usable one in the list is mined. When it
+ * fails, the account's workers are handed the next pool's latest job at once and carry on without
+ * restarting. A pool earlier in the list takes over as soon as it is usable, unless it has failed
+ * before: then it must first stay up for {@link #FAILBACK_DELAY_MILLIS}, so a flapping pool doesn't
+ * keep pulling the workers back and forth. Everything but construction runs on the event loop thread.
+ */
+public class MiningAccount implements PoolConnection.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(MiningAccount.class);
+
+    public static final long FAILBACK_DELAY_MILLIS = 10 * 1000;
+
+    private final String name;
+    private final int weight;
+    private final List<PoolConnection> pools;
+    private final MinerMetrics metrics;
+    private final boolean extraNonceRolling;
+    private final WorkBroadcast broadcast;
+    private final Runnable availabilityListener;
+
+    private volatile boolean running = false;
+    private volatile int workerCount;
+    private volatile int assignedWorkers;
+    private PoolConnection active;
+    private boolean available;
+
+    // Worker time this account was due and was given, kept by the JobManager's scheduler
+    double entitledSeconds;
+    double usedSeconds;
+
+    MiningAccount(String name, int weight, List<PoolConnection> pools, MinerMetrics metrics, boolean extraNonceRolling,
+                  Runnable firstJobListener, Runnable availabilityListener) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("Account " + name + " needs at least one pool!");
+        }
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Account " + name + " needs a positive weight (called with " + weight + ")!");
+        }
+
+        this.name = name;
+        this.weight = weight;
+        this.pools = new ArrayList<>(pools);
+        this.metrics = metrics;
+        this.extraNonceRolling = extraNonceRolling;
+        this.broadcast = new WorkBroadcast(firstJobListener);
+        this.availabilityListener = availabilityListener;
+        for (PoolConnection pool : this.pools) {
+            pool.setListener(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    WorkBroadcast getBroadcast() {
+        return broadcast;
+    }
+
+    /**
+     * Whether the account has a usable pool, and so should be given workers.
+     */
+    boolean isAvailable() {
+        return available;
+    }
+
+    void setAssignedWorkers(int assignedWorkers) {
+        this.assignedWorkers = assignedWorkers;
+    }
+
+    void start(int workerCount) {
+        this.workerCount = workerCount;
+        running = true;
+        for (PoolConnection pool : pools) {
+            pool.start();
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        for (PoolConnection pool : pools) {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public WorkPartitioner onSubscribed(PoolConnection pool, long extraNonce, int size) {
+        // Sized for every worker, as any of them may be assigned to this account
+        WorkPartitioner partitioner = new WorkPartitioner(extraNonce, size, workerCount, extraNonceRolling);
+        if (partitioner.getSlicesPerExtraNonce() > 1) {
+            logger.info("Extra-nonce space of {} is smaller than the worker count, splitting each nonce range {} ways",
+                    pool, partitioner.getSlicesPerExtraNonce());
+        }
+        if (extraNonceRolling && !partitioner.isRolling()) {
+            logger.info("Extra-nonce rolling needs at least one extra-nonce per worker, handing out shared ranges from {} instead", pool);
+        }
+        return partitioner;
+    }
+
+    @Override
+    public void onWork(PoolConnection pool, boolean newJob) {
+        if (pool != active) {
+            // A standby's work is only kept until it is needed, but its first job may make it usable
+            selectPool();
+            return;
+        }
+
+        if (newJob) {
+            publish(pool);
+        } else {
+            broadcast.publishTarget(pool.getTarget());
+        }
+    }
+
+    @Override
+    public void onStateChanged(PoolConnection pool) {
+        selectPool();
+    }
+
+    /**
+     * Switches to the preferred usable pool, if that isn't the one being mined. With no usable pool at
+     * all, the account's workers stay on the last work they were given until they are reassigned.
+     */
+    void selectPool() {
+        if (!running) {
+            return;
+        }
+
+        boolean activeUsable = active != null && active.isUsable();
+        for (PoolConnection pool : pools) {
+            if (pool == active && activeUsable) {
+                break;
+            }
+
+            if (pool.isUsable() && (!activeUsable || !pool.hasFailed() || pool.getUptimeMillis() >= FAILBACK_DELAY_MILLIS)) {
+                switchTo(pool);
+                activeUsable = true;
+                break;
+            }
+        }
+
+        if (available != activeUsable) {
+            available = activeUsable;
+            availabilityListener.run();
+        }
+    }
+
+    private void switchTo(PoolConnection pool) {
+        PoolConnection previous = active;
+        active = pool;
+
+        if (previous == null) {
+            System.out.println("Mining " + name + " on pool " + pool);
+        } else {
+            System.out.println("Switching " + name + " from pool " + previous + " to " + pool);
+        }
+        metrics.poolSwitched(name, pool.getName());
+
+        publish(pool);
+    }
+
+    private void publish(PoolConnection pool) {
+        StratumJob job = pool.getJob();
+        metrics.jobReceived(name, job.jobId, job, assignedWorkers);
+        broadcast.publishWork(pool.getClient(), pool.getPartitioner(), job, pool.getTarget());
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
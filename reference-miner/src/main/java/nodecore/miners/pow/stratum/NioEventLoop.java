@@ -0,0 +1,175 @@
+package nodecore.miners.pow.stratum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single selector thread that drives any number of {@link NioStratumTransport} connections.
+ *
+ * All channel state is only touched on the loop thread; other threads hand work over through
+ * {@link #execute}. Delayed work ({@link #schedule}) also runs on the loop thread.
+ */
+public class NioEventLoop {
+    private static final Logger logger = LoggerFactory.getLogger(NioEventLoop.class);
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // Only touched on the loop thread
+    private final PriorityQueue<ScheduledTask> scheduledTasks = new PriorityQueue<>();
+    private long scheduledSequence;
+    private final Thread thread;
+    private volatile boolean running = false;
+
+    interface Handler {
+        void onReady(SelectionKey key);
+
+        void onLoopShutdown();
+    }
+
+    public NioEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs {@code task} on the loop thread once {@code delay} has passed. Tasks still pending when the
+     * loop shuts down are dropped.
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(delay);
+        if (inEventLoop()) {
+            scheduledTasks.add(new ScheduledTask(task, deadline, scheduledSequence++));
+        } else {
+            execute(() -> scheduledTasks.add(new ScheduledTask(task, deadline, scheduledSequence++)));
+        }
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    private void run() {
+        while (running) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                runSafely(task);
+            }
+
+            runDueScheduledTasks();
+
+            try {
+                // Tasks queued from the loop itself don't wake the selector
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else if (!scheduledTasks.isEmpty()) {
+                    long waitNanos = scheduledTasks.peek().deadline - System.nanoTime();
+                    if (waitNanos > 0) {
+                        // select(0) would block indefinitely, so wait at least a millisecond
+                        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+                    } else {
+                        selector.selectNow();
+                    }
+                } else {
+                    selector.select();
+                }
+            } catch (IOException e) {
+                logger.error("Selector failed", e);
+                break;
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (key.isValid()) {
+                        ((Handler) key.attachment()).onReady(key);
+                    }
+                } catch (CancelledKeyException ignored) {
+                    // Closed while handling an earlier event
+                } catch (RuntimeException e) {
+                    logger.error("Unhandled exception in the I/O loop", e);
+                }
+            }
+        }
+
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            ((Handler) key.attachment()).onLoopShutdown();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close selector", e);
+        }
+    }
+
+    private void runDueScheduledTasks() {
+        long now = System.nanoTime();
+        while (!scheduledTasks.isEmpty() && scheduledTasks.peek().deadline - now <= 0) {
+            runSafely(scheduledTasks.poll().task);
+        }
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Unhandled exception in the I/O loop", e);
+        }
+    }
+
+    private static final class ScheduledTask implements Comparable<ScheduledTask> {
+        private final Runnable task;
+        private final long deadline;
+        // Keeps tasks with the same deadline in submission order
+        private final long sequence;
+
+        private ScheduledTask(Runnable task, long deadline, long sequence) {
+            this.task = task;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            long difference = deadline - other.deadline;
+            if (difference != 0) {
+                return difference < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package nodecore.miners.pow.stratum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A non-blocking Stratum connection served by a shared {@link NioEventLoop}.
+ *
+ * Incoming bytes land in a direct buffer and lines are handed to the listener as views onto it, so
+ * nothing is copied before decoding. Outgoing frames go through a bounded queue that the loop drains,
+ * so callers of {@link #send} never wait on the socket.
+ */
+public class NioStratumTransport implements StratumTransport, NioEventLoop.Handler {
+    private static final Logger logger = LoggerFactory.getLogger(NioStratumTransport.class);
+
+    public static final int DEFAULT_READ_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_WRITE_QUEUE_CAPACITY = 1024;
+
+    private final NioEventLoop loop;
+    private final InetSocketAddress address;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer frame;
+    private final BlockingQueue<ByteBuffer> writeQueue;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Runnable flushTask = this::flush;
+
+    private volatile boolean closed = false;
+    private FrameListener listener;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer pendingWrite;
+    private int scanPosition;
+
+    public NioStratumTransport(NioEventLoop loop, InetSocketAddress address) {
+        this(loop, address, DEFAULT_READ_BUFFER_SIZE, DEFAULT_WRITE_QUEUE_CAPACITY);
+    }
+
+    public NioStratumTransport(NioEventLoop loop, InetSocketAddress address, int readBufferSize, int writeQueueCapacity) {
+        this.loop = loop;
+        this.address = address;
+        this.readBuffer = ByteBuffer.allocateDirect(readBufferSize);
+        this.frame = readBuffer.duplicate();
+        this.writeQueue = new ArrayBlockingQueue<>(writeQueueCapacity);
+    }
+
+    @Override
+    public void open(FrameListener listener) {
+        this.listener = listener;
+        loop.execute(this::connect);
+    }
+
+    @Override
+    public boolean send(ByteBuffer frame) {
+        if (closed || !writeQueue.offer(frame)) {
+            return false;
+        }
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(flushTask);
+        }
+        return true;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        loop.execute(task);
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        loop.schedule(task, delay, unit);
+    }
+
+    @Override
+    public void close() {
+        if (loop.inEventLoop()) {
+            close(null);
+        } else {
+            loop.execute(() -> close(null));
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void onReady(SelectionKey key) {
+        if (key.isConnectable()) {
+            finishConnect();
+            return;
+        }
+
+        if (key.isReadable()) {
+            read();
+        }
+
+        if (!closed && key.isWritable()) {
+            write();
+        }
+    }
+
+    @Override
+    public void onLoopShutdown() {
+        close(null);
+    }
+
+    private void connect() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            if (channel.connect(address)) {
+                key = channel.register(loop.selector(), SelectionKey.OP_READ, this);
+                connected();
+            } else {
+                key = channel.register(loop.selector(), SelectionKey.OP_CONNECT, this);
+            }
+        } catch (IOException | UnresolvedAddressException e) {
+            close(e);
+        }
+    }
+
+    private void finishConnect() {
+        try {
+            channel.finishConnect();
+            key.interestOps(SelectionKey.OP_READ);
+            connected();
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void connected() {
+        logger.info("Connected to {}", address);
+        listener.onConnected();
+
+        // Anything queued before the connection completed
+        flush();
+    }
+
+    private void read() {
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            close(e);
+            return;
+        }
+
+        if (read < 0) {
+            close(new EOFException("Connection closed by " + address));
+            return;
+        }
+
+        int end = readBuffer.position();
+        int start = 0;
+        for (int i = scanPosition; i < end && !closed; i++) {
+            if (readBuffer.get(i) != '\n') {
+                continue;
+            }
+
+            int frameEnd = i;
+            if (frameEnd > start && readBuffer.get(frameEnd - 1) == '\r') {
+                frameEnd--;
+            }
+            if (frameEnd > start) {
+                frame.clear();
+                frame.limit(frameEnd);
+                frame.position(start);
+                listener.onFrame(frame);
+            }
+            start = i + 1;
+        }
+
+        if (closed) {
+            return;
+        }
+
+        if (start == 0 && end == readBuffer.capacity()) {
+            close(new IOException("Incoming line exceeds " + readBuffer.capacity() + " bytes"));
+            return;
+        }
+
+        // Keep the partial line at the head of the buffer
+        readBuffer.limit(end);
+        readBuffer.position(start);
+        readBuffer.compact();
+        scanPosition = end - start;
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        if (key != null && !closed && key.interestOps() == SelectionKey.OP_READ) {
+            write();
+        }
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                if (pendingWrite == null) {
+                    pendingWrite = writeQueue.poll();
+                    if (pendingWrite == null) {
+                        break;
+                    }
+                }
+
+                channel.write(pendingWrite);
+                if (pendingWrite.hasRemaining()) {
+                    // Socket buffer is full; resume when the channel is writable again
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pendingWrite = null;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void close(Throwable cause) {
+        if (closed && channel == null) {
+            return;
+        }
+        boolean notify = !closed;
+        closed = true;
+
+        if (key != null) {
+            key.cancel();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Error closing connection to {}", address, e);
+            }
+            channel = null;
+        }
+        writeQueue.clear();
+
+        if (notify && listener != null) {
+            listener.onClosed(cause);
+        }
+    }
+}
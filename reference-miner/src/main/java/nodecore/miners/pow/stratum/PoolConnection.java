@@ -0,0 +1,330 @@
+package nodecore.miners.pow.stratum;
+
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.metrics.MinerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pool of an ordered failover list: a Stratum session that reconnects by itself and always holds
+ * the pool's latest job and difficulty, whether or not the pool is being mined. A standby pool is
+ * therefore subscribed and ready, and switching to it is a single publish to the workers.
+ *
+ * The pool's health is 0 while it has no job (not connected, not subscribed yet, or silent for
+ * {@link #JOB_MAX_AGE_MILLIS}) and otherwise a moving average of its share results, where an accepted
+ * share counts 1 and a rejected or unanswered one 0. A pool whose average drops below
+ * {@link #MIN_HEALTH} is benched for {@link #BENCH_MILLIS} and then given a fresh start.
+ *
+ * Optionally, each session suggests the difficulty that keeps it near a target share rate (see
+ * {@link ShareRateController}), and shares below a local minimum difficulty are never submitted.
+ *
+ * Everything but {@link #start} and {@link #shutdown} runs on the event loop thread.
+ */
+public class PoolConnection {
+    private static final Logger logger = LoggerFactory.getLogger(PoolConnection.class);
+
+    public static final long JOB_MAX_AGE_MILLIS = 5 * 60 * 1000;
+    public static final double MIN_HEALTH = 0.5;
+    public static final long BENCH_MILLIS = 60 * 1000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30 * 1000;
+    // Weight of the newest share in the moving average, so roughly the last ten shares count
+    private static final double SHARE_WEIGHT = 0.1;
+    // Shares seen before the average may bench the pool
+    private static final int MIN_SHARES_FOR_HEALTH = 5;
+    // How often the share rate is measured and a difficulty suggested, once there is a rate to go by
+    public static final long DIFFICULTY_ADJUST_MILLIS = 30 * 1000;
+    private static final long FIRST_DIFFICULTY_ADJUST_MILLIS = 10 * 1000;
+
+    public interface Listener {
+        /**
+         * Called when a session subscribes; returns how its search space is split between the workers.
+         */
+        WorkPartitioner onSubscribed(PoolConnection pool, long extraNonce, int extraNonceSize);
+
+        /**
+         * Called when the pool sends a new job ({@code newJob}) or difficulty.
+         */
+        void onWork(PoolConnection pool, boolean newJob);
+
+        /**
+         * Called when the pool connects or disconnects.
+         */
+        void onStateChanged(PoolConnection pool);
+    }
+
+    private final String name;
+    private final InetSocketAddress address;
+    private final String username;
+    private final NioEventLoop loop;
+    private final StratumTransport.Factory transports;
+    private final MinerMetrics metrics;
+    private Listener listener;
+    private ShareRateController shareRate;
+    private BigInteger minimumDifficulty = BigInteger.ONE;
+
+    private volatile boolean running = false;
+    private int failures;
+    private boolean everLost = false;
+
+    // The current session; all reset on every connection
+    private StratumClient client;
+    private WorkPartitioner partitioner;
+    private StratumJob job;
+    private HashTarget target;
+    private BigInteger difficulty;
+    private boolean suggestionsIgnored;
+    private long subscribedAt;
+    private long lastJobAt;
+
+    private double shareScore = 1.0;
+    private int shareCount;
+    private long benchedUntil;
+
+    public PoolConnection(String name, InetSocketAddress address, String username, NioEventLoop loop, MinerMetrics metrics) {
+        this(name, address, username, loop, a -> new NioStratumTransport(loop, a), metrics);
+    }
+
+    /**
+     * {@code transports} must deliver its events on {@code loop}'s thread.
+     */
+    public PoolConnection(String name, InetSocketAddress address, String username, NioEventLoop loop,
+                          StratumTransport.Factory transports, MinerMetrics metrics) {
+        this.name = name;
+        this.address = address;
+        this.username = username;
+        this.loop = loop;
+        this.transports = transports;
+        this.metrics = metrics;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Keeps each session near {@code sharesPerMinute} shares a minute by suggesting a difficulty to the
+     * pool, or not if 0. Must be called before {@link #start}.
+     */
+    public void setShareRate(double sharesPerMinute) {
+        this.shareRate = sharesPerMinute > 0 ? new ShareRateController(sharesPerMinute) : null;
+    }
+
+    /**
+     * Only submits shares meeting at least {@code minimumDifficulty}, whatever lower difficulty the pool
+     * sets. Must be called before {@link #start}.
+     */
+    public void setMinimumDifficulty(BigInteger minimumDifficulty) {
+        this.minimumDifficulty = minimumDifficulty.max(BigInteger.ONE);
+    }
+
+    public void start() {
+        running = true;
+        loop.execute(this::connect);
+    }
+
+    public void shutdown() {
+        running = false;
+        loop.execute(() -> {
+            if (client != null) {
+                client.shutdown();
+            }
+        });
+    }
+
+    public StratumClient getClient() {
+        return client;
+    }
+
+    public WorkPartitioner getPartitioner() {
+        return partitioner;
+    }
+
+    public StratumJob getJob() {
+        return job;
+    }
+
+    public HashTarget getTarget() {
+        return target;
+    }
+
+    public boolean hasWork() {
+        return client != null && partitioner != null && job != null;
+    }
+
+    /**
+     * Milliseconds since the current session subscribed, or -1 if it hasn't.
+     */
+    public long getUptimeMillis() {
+        return partitioner == null ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - subscribedAt);
+    }
+
+    /**
+     * Whether a session with this pool has ever been lost or failed to connect.
+     */
+    public boolean hasFailed() {
+        return everLost;
+    }
+
+    public double getHealth() {
+        if (!hasWork() || System.nanoTime() - lastJobAt > TimeUnit.MILLISECONDS.toNanos(JOB_MAX_AGE_MILLIS)) {
+            return 0;
+        }
+
+        if (benchedUntil != 0) {
+            if (System.nanoTime() - benchedUntil < 0) {
+                return 0;
+            }
+            benchedUntil = 0;
+            shareScore = 1.0;
+            shareCount = 0;
+        }
+        return shareScore;
+    }
+
+    public boolean isUsable() {
+        return getHealth() >= MIN_HEALTH;
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+
+        StratumClient client = new StratumClient(username, transports.create(address), metrics);
+        client.setSubscribeHandler((extraNonce, size) -> onSubscribed(client, extraNonce, size));
+        // Workers move to every new job at once, so clean_jobs makes no difference to them
+        client.setJobHandler((job, cleanJobs) -> onJob(client, job));
+        client.setDifficultyChangedHandler(difficulty -> onDifficultyChanged(client, difficulty));
+        client.setShareResultHandler(outcome -> onShareResult(client, outcome));
+        client.setDisconnectHandler(() -> onDisconnected(client));
+
+        this.client = client;
+        this.partitioner = null;
+        this.job = null;
+        // Stratum pools start every connection at difficulty 1 until told otherwise
+        this.difficulty = BigInteger.ONE;
+        this.target = shareTarget(difficulty, minimumDifficulty);
+        this.suggestionsIgnored = false;
+        client.start();
+
+        if (shareRate != null) {
+            shareRate.reset(0, System.nanoTime());
+            loop.schedule(() -> adjustDifficulty(client), FIRST_DIFFICULTY_ADJUST_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void onSubscribed(StratumClient client, long extraNonce, int size) {
+        if (client != this.client) {
+            return;
+        }
+
+        failures = 0;
+        subscribedAt = System.nanoTime();
+        partitioner = listener.onSubscribed(this, extraNonce, size);
+        listener.onStateChanged(this);
+    }
+
+    private void onJob(StratumClient client, StratumJob job) {
+        if (client != this.client || partitioner == null) {
+            return;
+        }
+
+        this.job = job;
+        this.lastJobAt = System.nanoTime();
+        listener.onWork(this, true);
+    }
+
+    private void onDifficultyChanged(StratumClient client, BigInteger difficulty) {
+        if (client != this.client) {
+            return;
+        }
+
+        this.difficulty = difficulty;
+        target = shareTarget(difficulty, minimumDifficulty);
+        if (job != null) {
+            listener.onWork(this, false);
+        }
+    }
+
+    /**
+     * The target for shares worth submitting at the pool's {@code difficulty}: shares below the local
+     * minimum are never worth sending.
+     */
+    static HashTarget shareTarget(BigInteger difficulty, BigInteger minimumDifficulty) {
+        return HashTarget.fromDifficulty(difficulty.max(minimumDifficulty));
+    }
+
+    /**
+     * Measures the session's hash rate and suggests the difficulty that gives the configured share rate,
+     * for as long as the session lasts.
+     */
+    private void adjustDifficulty(StratumClient client) {
+        if (client != this.client) {
+            return;
+        }
+
+        BigInteger suggested = shareRate.update(client.getHashCount(), System.nanoTime(), difficulty);
+        if (suggested != null && job != null && !suggestionsIgnored) {
+            logger.info("Suggesting difficulty {} to {} for {} H/s", suggested, name, String.format("%.0f", shareRate.getHashRate()));
+            client.suggestDifficulty(suggested, accepted -> {
+                if (!accepted && client == this.client && !suggestionsIgnored) {
+                    suggestionsIgnored = true;
+                    System.out.println(String.format("Pool %1$s does not take difficulty suggestions", name));
+                }
+            });
+        }
+        loop.schedule(() -> adjustDifficulty(client), DIFFICULTY_ADJUST_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void onShareResult(StratumClient client, ShareOutcome outcome) {
+        if (client != this.client || outcome == ShareOutcome.STALE) {
+            return;
+        }
+
+        shareScore += SHARE_WEIGHT * ((outcome == ShareOutcome.ACCEPTED ? 1.0 : 0.0) - shareScore);
+        if (++shareCount >= MIN_SHARES_FOR_HEALTH && shareScore < MIN_HEALTH && benchedUntil == 0) {
+            benchedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BENCH_MILLIS);
+            System.out.println(String.format("Pool %1$s is rejecting most shares, benching it for %2$s seconds",
+                    name, TimeUnit.MILLISECONDS.toSeconds(BENCH_MILLIS)));
+            listener.onStateChanged(this);
+        }
+    }
+
+    private void onDisconnected(StratumClient client) {
+        if (client != this.client) {
+            return;
+        }
+
+        this.client = null;
+        this.partitioner = null;
+        this.job = null;
+        this.everLost = true;
+        listener.onStateChanged(this);
+
+        if (!running) {
+            return;
+        }
+
+        // Reconnect at once after losing a working session, then back off while the pool stays down
+        long delay = failures == 0 ? 0 : Math.min(MAX_RECONNECT_DELAY_MILLIS, 1000L << Math.min(failures - 1, 5));
+        failures++;
+        if (delay > 0) {
+            System.out.println(String.format("Unable to reach pool %1$s, retrying in %2$s ms", name, delay));
+        }
+        logger.debug("Reconnecting to {} in {} ms", name, delay);
+        loop.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,117 @@
+package nodecore.miners.pow.stratum;
+
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.VBlake;
+import nodecore.miners.pow.VBlakeHasher;
+import nodecore.miners.pow.VBlakeKernel;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A block header for one job and extra-nonce with everything but the timestamp and nonce hashed ahead.
+ *
+ * Only bytes 52 .. 63 of the header change while mining, and they all fall in message words m[6] and
+ * m[7], so the kernel midstate for m[0 .. 5] is computed once here and each hash only supplies those
+ * two words. Not thread-safe; each mining thread prepares its own.
+ */
+public class PreparedHeader {
+    public static final int TIMESTAMP_OFFSET = 52;
+    public static final int NONCE_OFFSET = 60;
+
+    public final StratumJob job;
+
+    private final ByteBuffer header;
+    private final long[] midstate = new long[VBlakeKernel.MIDSTATE_SIZE];
+
+    // The low halves of m[6] (merkle root tail) and m[7] (difficulty)
+    private long merkleTail;
+    private final long difficultyWord;
+
+    private long extraNonce;
+    private int timestamp;
+    private long m6;
+
+    public PreparedHeader(StratumJob job, int timestamp, long extraNonce) {
+        this(job, timestamp, extraNonce, new MerkleRootCalculator());
+    }
+
+    public PreparedHeader(StratumJob job, int timestamp, long extraNonce, MerkleRootCalculator calculator) {
+        this.job = job;
+        this.extraNonce = extraNonce;
+
+        byte[] bytes = new byte[VBlakeHasher.HEADER_SIZE];
+        job.writeHeader(timestamp, extraNonce, calculator, bytes);
+        this.header = ByteBuffer.wrap(bytes);
+        this.difficultyWord = VBlakeHasher.readLongLE(bytes, 56) & 0xFFFFFFFFL;
+
+        prepare();
+        setTimestamp(timestamp);
+    }
+
+    private void prepare() {
+        byte[] bytes = header.array();
+        VBlakeKernel.prepare(
+                VBlakeHasher.readLongLE(bytes, 0),  VBlakeHasher.readLongLE(bytes, 8),
+                VBlakeHasher.readLongLE(bytes, 16), VBlakeHasher.readLongLE(bytes, 24),
+                VBlakeHasher.readLongLE(bytes, 32), VBlakeHasher.readLongLE(bytes, 40),
+                midstate);
+        this.merkleTail = VBlakeHasher.readLongLE(bytes, 48) & 0xFFFFFFFFL;
+    }
+
+    public long getExtraNonce() {
+        return extraNonce;
+    }
+
+    /**
+     * Switches to another extra-nonce of the same job: recomputes the merkle root into the header and
+     * the midstate from it, keeping the timestamp. Costs two SHA-256 digests and one partial round.
+     */
+    public void setExtraNonce(long extraNonce, MerkleRootCalculator calculator) {
+        if (extraNonce == this.extraNonce) {
+            return;
+        }
+
+        this.extraNonce = extraNonce;
+        calculator.calculate(job, extraNonce, header.array(), StratumJob.MERKLE_ROOT_OFFSET);
+        prepare();
+        setTimestamp(timestamp);
+    }
+
+    public int getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(int timestamp) {
+        this.timestamp = timestamp;
+        this.m6 = merkleTail | ((Integer.reverseBytes(timestamp) & 0xFFFFFFFFL) << 32);
+        header.putInt(TIMESTAMP_OFFSET, timestamp);
+    }
+
+    /**
+     * Hashes the header with the given nonce, leaving h[0 .. 2] in {@code h}. {@code v} is 16 words of
+     * caller-owned scratch space.
+     */
+    public void hash(int nonce, long[] v, long[] h) {
+        VBlakeKernel.compress(midstate, m6, difficultyWord | ((long) Integer.reverseBytes(nonce) << 32), v, h);
+    }
+
+    /**
+     * Hashes nonces [firstNonce, firstNonce + count) and writes the offsets of those meeting
+     * {@code target} to {@code found}, as {@link VBlake#hashBatch} does.
+     *
+     * @return The number of offsets written to {@code found}
+     */
+    public int hashBatch(int firstNonce, int count, HashTarget target, int[] found, long[] v, long[] h) {
+        return VBlake.hashBatch(midstate, m6, difficultyWord, firstNonce, count, target, found, v, h);
+    }
+
+    /**
+     * Returns a copy of the full 64-byte header with the current timestamp and the given nonce.
+     */
+    public byte[] toHeader(int nonce) {
+        byte[] copy = Arrays.copyOf(header.array(), VBlakeHasher.HEADER_SIZE);
+        ByteBuffer.wrap(copy).putInt(NONCE_OFFSET, nonce);
+        return copy;
+    }
+}
@@ -1,7 +0,0 @@
-package nodecore.miners.pow.stratum;
-
-public class RequestCommand {
-    public String method;
-    public String[] params;
-    public String id;
-}
@@ -0,0 +1,153 @@
+package nodecore.miners.pow.stratum;
+
+import java.util.Arrays;
+
+/**
+ * Drops shares the pool would certainly reject, before they are sent: shares for a job the pool no
+ * longer has, and shares already submitted once.
+ *
+ * The pool keeps every job built on the current previous block, so the filter keeps the ids of the
+ * last {@link #MAX_JOBS} jobs and forgets the others when a job with another previous hash arrives.
+ * The clean-jobs flag is not enough: the VeriBlock stratum server sets it on every job, while still
+ * accepting shares for earlier jobs on the same block. Jobs are numbered as they arrive, and submitted
+ * shares are remembered by job number, extra-nonce, timestamp and nonce in two open-addressed tables
+ * of {@link #GENERATION_SIZE} shares each. When the newer table is full the older one is emptied and
+ * takes its place, so at least the last {@link #GENERATION_SIZE} shares are always remembered and the
+ * filter never grows. A new previous block empties both, as every share before it is stale anyway.
+ *
+ * Not thread-safe; {@link StratumClient} uses it on the I/O thread, which also sees every job.
+ */
+public class ShareFilter {
+    public static final int MAX_JOBS = 16;
+    public static final int GENERATION_SIZE = 4096;
+
+    public enum Verdict {
+        SUBMIT,
+        STALE,
+        DUPLICATE
+    }
+
+    // Ring of the most recent jobs and their numbers; the oldest is overwritten first
+    private final String[] jobIds = new String[MAX_JOBS];
+    private final long[] jobNumbers = new long[MAX_JOBS];
+    private int jobCount;
+    private long nextJobNumber = 1;
+    private String previousHash;
+
+    private Generation current = new Generation();
+    private Generation previous = new Generation();
+
+    /**
+     * Makes {@code jobId} valid for submissions; a job on another previous block invalidates every
+     * earlier job.
+     */
+    public void onJob(String jobId, String previousHash) {
+        if (!previousHash.equals(this.previousHash)) {
+            this.previousHash = previousHash;
+            jobCount = 0;
+            current.clear();
+            previous.clear();
+        }
+
+        int slot = (int) (nextJobNumber % MAX_JOBS);
+        jobIds[slot] = jobId;
+        jobNumbers[slot] = nextJobNumber++;
+        jobCount = Math.min(jobCount + 1, MAX_JOBS);
+    }
+
+    /**
+     * Whether the share should be submitted. A share that should is remembered, so the same share
+     * offered again is a {@link Verdict#DUPLICATE}.
+     */
+    public Verdict check(String jobId, long extraNonce, int timestamp, int nonce) {
+        long job = findJob(jobId);
+        if (job == 0) {
+            return Verdict.STALE;
+        }
+
+        long timestampAndNonce = ((long) timestamp << 32) | (nonce & 0xFFFFFFFFL);
+        if (previous.contains(job, extraNonce, timestampAndNonce) || !current.add(job, extraNonce, timestampAndNonce)) {
+            return Verdict.DUPLICATE;
+        }
+
+        if (current.size == GENERATION_SIZE) {
+            Generation emptied = previous;
+            emptied.clear();
+            previous = current;
+            current = emptied;
+        }
+        return Verdict.SUBMIT;
+    }
+
+    /**
+     * The number of a job still valid, newest first, or 0 if it isn't.
+     */
+    private long findJob(String jobId) {
+        for (int i = 0; i < jobCount; i++) {
+            int slot = (int) ((nextJobNumber - 1 - i) % MAX_JOBS);
+            if (jobIds[slot].equals(jobId)) {
+                return jobNumbers[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A set of shares as (job number, extra-nonce, timestamp and nonce) triples in one long array,
+     * probed linearly and kept at most half full. Job numbers start at 1, so 0 marks a free slot.
+     */
+    private static final class Generation {
+        private static final int SLOTS = GENERATION_SIZE * 2;
+
+        private final long[] keys = new long[SLOTS * 3];
+        private int size;
+
+        private boolean contains(long job, long extraNonce, long timestampAndNonce) {
+            return keys[find(job, extraNonce, timestampAndNonce)] != 0;
+        }
+
+        private boolean add(long job, long extraNonce, long timestampAndNonce) {
+            int at = find(job, extraNonce, timestampAndNonce);
+            if (keys[at] != 0) {
+                return false;
+            }
+
+            keys[at] = job;
+            keys[at + 1] = extraNonce;
+            keys[at + 2] = timestampAndNonce;
+            size++;
+            return true;
+        }
+
+        /**
+         * The index of the share's slot, or of the free slot where it would go.
+         */
+        private int find(long job, long extraNonce, long timestampAndNonce) {
+            int slot = (int) mix(job * 0x9E3779B97F4A7C15L ^ extraNonce ^ mix(timestampAndNonce)) & (SLOTS - 1);
+            while (true) {
+                int at = slot * 3;
+                if (keys[at] == 0 || (keys[at] == job && keys[at + 1] == extraNonce && keys[at + 2] == timestampAndNonce)) {
+                    return at;
+                }
+                slot = (slot + 1) & (SLOTS - 1);
+            }
+        }
+
+        private void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, 0);
+                size = 0;
+            }
+        }
+
+        // Murmur3's 64-bit finalizer
+        private static long mix(long k) {
+            k ^= k >>> 33;
+            k *= 0xFF51AFD7ED558CCDL;
+            k ^= k >>> 33;
+            k *= 0xC4CEB93E1A85EC53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package nodecore.miners.pow.stratum;
+
+/**
+ * What became of a submitted share.
+ */
+public enum ShareOutcome {
+    ACCEPTED,
+    REJECTED,
+    // Refused because its job was no longer current
+    STALE,
+    // Not answered within the request timeout
+    TIMED_OUT
+}
@@ -0,0 +1,91 @@
+package nodecore.miners.pow.stratum;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Works out the share difficulty that keeps a connection near a target share rate.
+ *
+ * A share takes difficulty hashes on average, so at a hash rate of r the difficulty for s shares per
+ * minute is 60 r / s. The hash rate is measured from the hashes the mining threads spend on the
+ * connection, as a moving average over calls to {@link #update}, so a worker moving to another
+ * account doesn't swing it at once. Suggestions are rounded to two significant digits and only made
+ * when the pool's difficulty is more than {@link #TOLERANCE} away, so the pool isn't asked to retarget
+ * for noise. Time and hash counts are passed in, so the controller holds no clock or connection of its
+ * own. Not thread-safe; {@link PoolConnection} calls it on the event loop thread.
+ */
+public class ShareRateController {
+    // Relative difference from the pool's difficulty worth a suggestion
+    public static final double TOLERANCE = 0.25;
+    // Weight of the newest measurement in the hash rate average
+    private static final double RATE_WEIGHT = 0.5;
+
+    private final double sharesPerMinute;
+
+    private long lastHashes;
+    private long lastAt;
+    private double hashRate = Double.NaN;
+
+    public ShareRateController(double sharesPerMinute) {
+        if (!(sharesPerMinute > 0)) {
+            throw new IllegalArgumentException("The target share rate must be positive (called with " + sharesPerMinute + ")!");
+        }
+        this.sharesPerMinute = sharesPerMinute;
+    }
+
+    public double getSharesPerMinute() {
+        return sharesPerMinute;
+    }
+
+    /**
+     * The measured hash rate in hashes per second, or NaN before the first measurement.
+     */
+    public double getHashRate() {
+        return hashRate;
+    }
+
+    /**
+     * Starts measuring a new session, whose hash count is {@code hashes} at {@code nowNanos}.
+     */
+    public void reset(long hashes, long nowNanos) {
+        lastHashes = hashes;
+        lastAt = nowNanos;
+        hashRate = Double.NaN;
+    }
+
+    /**
+     * Measures the hash rate since the last call and returns the difficulty to suggest, or null if
+     * {@code difficulty} is close enough or no hashes were spent on the connection in the meantime (it
+     * isn't being mined).
+     */
+    public BigInteger update(long hashes, long nowNanos, BigInteger difficulty) {
+        long count = hashes - lastHashes;
+        double seconds = (nowNanos - lastAt) / (double) TimeUnit.SECONDS.toNanos(1);
+        lastHashes = hashes;
+        lastAt = nowNanos;
+        if (count <= 0 || seconds <= 0) {
+            return null;
+        }
+
+        double rate = count / seconds;
+        hashRate = Double.isNaN(hashRate) ? rate : hashRate + RATE_WEIGHT * (rate - hashRate);
+
+        BigInteger suggested = difficultyFor(hashRate, sharesPerMinute);
+        double ratio = suggested.doubleValue() / difficulty.doubleValue();
+        return Math.abs(ratio - 1) > TOLERANCE ? suggested : null;
+    }
+
+    /**
+     * The difficulty giving {@code sharesPerMinute} shares per minute at {@code hashRate}, rounded to two
+     * significant digits and at least 1.
+     */
+    static BigInteger difficultyFor(double hashRate, double sharesPerMinute) {
+        double difficulty = hashRate * 60 / sharesPerMinute;
+        if (difficulty < 1) {
+            return BigInteger.ONE;
+        }
+        return new BigDecimal(difficulty).round(new MathContext(2)).toBigInteger();
+    }
+}
@@ -1,41 +1,67 @@
 package nodecore.miners.pow.stratum;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import nodecore.miners.pow.Utility;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.OutputStream;
+import nodecore.miners.pow.metrics.MinerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
-public class StratumClient {
-    private final String username;
-    private final OutputStream out;
-    private final BufferedReader in;
+public class StratumClient implements StratumTransport.FrameListener, StratumMessageDecoder.Handler {
+    private static final Logger logger = LoggerFactory.getLogger(StratumClient.class);
+
+    public static final long REQUEST_TIMEOUT_MILLIS = 30000;
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private static final String MINING_SUBSCRIBE = "mining.subscribe";
+    private static final String MINING_AUTHORIZE = "mining.authorize";
+    private static final String MINING_SUBMIT = "mining.submit";
+    private static final String MINING_SUGGEST_DIFFICULTY = "mining.suggest_difficulty";
+
+    // Stratum error code for a share whose job the pool no longer accepts
+    private static final int ERROR_JOB_NOT_FOUND = 21;
+
+    private final StratumTransport transport;
+    private final MinerMetrics metrics;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicInteger requestCounter = new AtomicInteger(0);
-    private final Map<String, CompletableFuture<String>> requests = new ConcurrentHashMap<>();
-    private final Gson serializer;
-    private final JsonParser parser;
-    private final ExecutorService executor;
+    private final StratumMessageDecoder decoder = new StratumMessageDecoder(this);
+    private final StratumMessageEncoder encoder;
+
+    // Shares found by the mining threads, written out in batches by the I/O thread
+    private final Queue<PendingShare> pendingShares = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drainShares;
+
+    // Hashes the mining threads have spent on this connection's jobs
+    private final LongAdder hashes = new LongAdder();
+
+    // Only touched on the I/O thread
+    private final Map<Integer, PendingRequest> requests = new HashMap<>();
+    private final ShareFilter shareFilter = new ShareFilter();
+    // Request ids of the shares in the batch being drained
+    private int[] drainedIds = new int[64];
 
     private BiConsumer<Long, Integer> subscribeHandler;
     public void setSubscribeHandler(BiConsumer<Long, Integer> subscribeHandler) {
         this.subscribeHandler = subscribeHandler;
     }
 
-    private Consumer<StratumJob> jobHandler;
-    public void setJobHandler(Consumer<StratumJob> jobHandler) {
+    private BiConsumer<StratumJob, Boolean> jobHandler;
+    public void setJobHandler(BiConsumer<StratumJob, Boolean> jobHandler) {
         this.jobHandler = jobHandler;
     }
 
@@ -44,150 +70,326 @@ public class StratumClient {
         this.difficultyChangedHandler = difficultyChangedHandler;
     }
 
+    private Consumer<ShareOutcome> shareResultHandler;
+    public void setShareResultHandler(Consumer<ShareOutcome> shareResultHandler) {
+        this.shareResultHandler = shareResultHandler;
+    }
+
+    private Runnable disconnectHandler;
+    public void setDisconnectHandler(Runnable disconnectHandler) {
+        this.disconnectHandler = disconnectHandler;
+    }
+
     public Integer nextRequestId() {
         return requestCounter.incrementAndGet();
     }
 
-    public StratumClient(String username, OutputStream out, BufferedReader in) {
-        this.username = username;
-        this.out = out;
-        this.in = in;
-
-        this.serializer = new Gson();
-        this.parser = new JsonParser();
-        this.executor = Executors.newSingleThreadExecutor();
+    public StratumClient(String username, StratumTransport transport, MinerMetrics metrics) {
+        this.transport = transport;
+        this.metrics = metrics;
+        this.encoder = new StratumMessageEncoder(username);
     }
 
     public void start() {
         running.set(true);
-        executor.submit(this::run);
+        transport.open(this);
+    }
 
-        CompletableFuture<String> subscribe = new CompletableFuture<>();
-        subscribe.thenAccept(this::handleSubscribeResponse);
+    @Override
+    public void onConnected() {
+        transport.schedule(this::sweepRequests, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
 
         // Send the subscribe request
-        String requestId = subscribe();
-        requests.put(requestId, subscribe);
+        subscribe();
     }
 
+    /**
+     * Queues a share for submission. Safe to call from any thread and never blocks; shares queued while
+     * a batch is being written go out with the next one. Shares for a closed connection are dropped.
+     */
     public void submitShare(String jobId, long extraNonce, int timestamp, int nonce) {
-        RequestCommand request = new RequestCommand();
-        request.id = nextRequestId().toString();
-        request.method = "mining.submit";
-        request.params = new String[] {
-                this.username,
-                jobId,
-                Utility.bytesToHex(Utility.longToByteArray(extraNonce)),
-                Utility.bytesToHex(Utility.intToByteArray(timestamp)),
-                Utility.bytesToHex(Utility.intToByteArray(nonce))
-        };
+        if (!transport.isOpen()) {
+            return;
+        }
 
-        try {
-            send(request);
-        } catch (IOException e) {
-            e.printStackTrace();
+        pendingShares.add(new PendingShare(jobId, extraNonce, timestamp, nonce));
+        if (drainScheduled.compareAndSet(false, true)) {
+            transport.execute(drainTask);
         }
     }
 
+    /**
+     * Counts hashes spent on this connection's work. Called by the mining threads once per chunk.
+     */
+    public void countHashes(long count) {
+        hashes.add(count);
+    }
+
+    public long getHashCount() {
+        return hashes.sum();
+    }
+
+    /**
+     * Asks the pool for a share difficulty with mining.suggest_difficulty; {@code resultHandler} is told
+     * whether the pool accepted the request. Must be called on the I/O thread.
+     */
+    public void suggestDifficulty(BigInteger difficulty, Consumer<Boolean> resultHandler) {
+        int id = nextRequestId();
+        encoder.suggestDifficulty(id, difficulty.toString());
+        send(id, MINING_SUGGEST_DIFFICULTY, response -> resultHandler.accept(!response.hasError));
+    }
+
     public void shutdown() {
         this.running.set(false);
+        transport.close();
     }
 
-    private void run() {
-        while(running.get()) {
-            try {
-                String message = in.readLine();
-                System.out.println(message);
-
-                JsonObject json = parser.parse(message).getAsJsonObject();
-                if (json.has("method")) {
-                    // Handle incoming command
-                    handleRequest(json);
-                } else if (json.has("result")) {
-                    // Handle successful response
-                    CompletableFuture<String> request = requests.get(json.get("id").getAsString());
-                    if (request != null) {
-                        request.complete(message);
-                    }
-                } else if (json.has("error")) {
-                    // Handle error response
+    @Override
+    public void onFrame(ByteBuffer frame) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("RECEIVED: {}", StandardCharsets.UTF_8.decode(frame.duplicate()));
+        }
+
+        try {
+            decoder.decode(frame);
+        } catch (RuntimeException e) {
+            System.out.println("Ignoring a message from the mining host that could not be handled: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onNotify(StratumJob job, boolean cleanJobs) {
+        shareFilter.onJob(job.jobId, job.previousHash);
+        if (jobHandler != null) {
+            jobHandler.accept(job, cleanJobs);
+        }
+    }
+
+    @Override
+    public void onSetDifficulty(BigInteger difficulty) {
+        if (difficultyChangedHandler != null) {
+            difficultyChangedHandler.accept(difficulty);
+        }
+    }
+
+    @Override
+    public void onResponse(StratumResponse response) {
+        PendingRequest request = requests.remove(response.id);
+        if (response.hasError) {
+            System.out.println("Request " + response.id + " failed: " + response.errorCode + " " + response.errorMessage);
+        }
+
+        if (request == null) {
+            return;
+        }
+        if (request.jobId != null) {
+            handleSubmitResponse(request.jobId, response, System.nanoTime() - request.sentAt);
+        } else if (request.callback != null) {
+            request.callback.accept(response);
+        }
+    }
+
+    @Override
+    public void onClosed(Throwable cause) {
+        if (running.get()) {
+            System.out.println("Connection to the mining host was lost" + (cause != null ? ": " + cause : ""));
+        }
+        requests.clear();
+        pendingShares.clear();
+
+        System.out.println("Shares so far: " + metrics.getTotals());
+
+        if (disconnectHandler != null) {
+            disconnectHandler.run();
+        }
+    }
+
+    /**
+     * Writes every queued share as one batch, leaving out those the pool would certainly reject (see
+     * {@link ShareFilter}). Runs on the I/O thread, which is the only writer.
+     */
+    private void drainShares() {
+        // Cleared first so a share queued during the drain schedules another one
+        drainScheduled.set(false);
+        if (!transport.isOpen()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        int count = 0;
+        PendingShare share;
+        while ((share = pendingShares.poll()) != null) {
+            ShareFilter.Verdict verdict = shareFilter.check(share.jobId, share.extraNonce, share.timestamp, share.nonce);
+            if (verdict != ShareFilter.Verdict.SUBMIT) {
+                if (verdict == ShareFilter.Verdict.STALE) {
+                    metrics.shareDroppedStale(share.jobId);
+                } else {
+                    metrics.shareDroppedDuplicate(share.jobId);
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
+                logger.debug("Not sending {} share for job {}", verdict, share.jobId);
+                continue;
             }
+
+            int requestId = nextRequestId();
+            encoder.submit(requestId, share.jobId, share.extraNonce, share.timestamp, share.nonce);
+            requests.put(requestId, new PendingRequest(MINING_SUBMIT, share.jobId, now, null));
+            if (count == drainedIds.length) {
+                drainedIds = Arrays.copyOf(drainedIds, count * 2);
+            }
+            drainedIds[count++] = requestId;
+        }
+
+        if (count == 0) {
+            return;
+        }
+
+        ByteBuffer frame = encoder.takeFrame();
+        if (logger.isDebugEnabled()) {
+            logger.debug("SENDING: {}", StandardCharsets.UTF_8.decode(frame.duplicate()));
+        }
+        if (!transport.send(frame)) {
+            // Never sent, so never answered; count them now rather than as timed out later
+            for (int i = 0; i < count; i++) {
+                PendingRequest request = requests.remove(drainedIds[i]);
+                if (request != null) {
+                    metrics.shareDroppedUnsent(request.jobId);
+                }
+            }
+            System.out.println("Unable to queue " + count + " share(s), the connection is closed or backed up");
         }
     }
 
-    private void send(RequestCommand request) throws IOException {
-        byte[] data = String.format("%s\n", serializer.toJson(request)).getBytes(StandardCharsets.UTF_8);
-        System.out.println("SENDING: " + serializer.toJson(request));
-        this.out.write(data);
+    private void handleSubmitResponse(String jobId, StratumResponse response, long latencyNanos) {
+        ShareOutcome outcome;
+        if (response.result && !response.hasError) {
+            metrics.shareAccepted(jobId, latencyNanos);
+            outcome = ShareOutcome.ACCEPTED;
+        } else if (isStale(response)) {
+            metrics.shareStale(jobId, latencyNanos);
+            outcome = ShareOutcome.STALE;
+        } else {
+            metrics.shareRejected(jobId, latencyNanos);
+            outcome = ShareOutcome.REJECTED;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Share {} for job {} {} after {} us", response.id, jobId, outcome,
+                    TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        }
+        if (shareResultHandler != null) {
+            shareResultHandler.accept(outcome);
+        }
     }
 
-    private String subscribe() {
-        Integer requestId = nextRequestId();
+    private static boolean isStale(StratumResponse response) {
+        return response.hasError && (response.errorCode == ERROR_JOB_NOT_FOUND
+                || (response.errorMessage != null && response.errorMessage.toLowerCase().contains("stale")));
+    }
 
-        RequestCommand request = new RequestCommand();
-        request.id = requestId.toString();
-        request.method = "mining.subscribe";
-        request.params = new String[] {};
+    /**
+     * Drops requests the pool has not answered within {@link #REQUEST_TIMEOUT_MILLIS}. Unanswered shares
+     * are counted as timed out and unanswered difficulty suggestions ignored; an unanswered subscribe or
+     * authorize means the session is unusable, so the connection is closed to force a reconnect.
+     */
+    private void sweepRequests() {
+        if (!transport.isOpen()) {
+            return;
+        }
 
-        try {
-            send(request);
-        } catch (IOException e) {
-            e.printStackTrace();
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(REQUEST_TIMEOUT_MILLIS);
+        Iterator<Map.Entry<Integer, PendingRequest>> entries = requests.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Integer, PendingRequest> entry = entries.next();
+            PendingRequest request = entry.getValue();
+            if (now - request.sentAt < timeoutNanos) {
+                continue;
+            }
+
+            entries.remove();
+            if (request.method.equals(MINING_SUBMIT)) {
+                metrics.shareTimedOut(request.jobId);
+                logger.warn("Share {} was not answered within {} ms", entry.getKey(), REQUEST_TIMEOUT_MILLIS);
+                if (shareResultHandler != null) {
+                    shareResultHandler.accept(ShareOutcome.TIMED_OUT);
+                }
+            } else if (request.method.equals(MINING_SUGGEST_DIFFICULTY)) {
+                // Optional for pools, so silence just means the suggestion was ignored
+                logger.info("The mining host did not answer difficulty suggestion {}", entry.getKey());
+            } else {
+                System.out.println("The mining host did not answer " + request.method + ", reconnecting");
+                transport.close();
+                return;
+            }
+        }
+
+        transport.schedule(this::sweepRequests, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the request just written to the encoder.
+     */
+    private void send(int id, String method, Consumer<StratumResponse> callback) {
+        requests.put(id, new PendingRequest(method, null, System.nanoTime(), callback));
+        ByteBuffer frame = encoder.takeFrame();
+        if (logger.isDebugEnabled()) {
+            logger.debug("SENDING: {}", StandardCharsets.UTF_8.decode(frame.duplicate()));
+        }
+        if (!transport.send(frame)) {
+            System.out.println("Unable to queue request " + id + ", the connection is closed or backed up");
         }
+    }
 
-        return requestId.toString();
+    private void subscribe() {
+        int id = nextRequestId();
+        encoder.subscribe(id);
+        send(id, MINING_SUBSCRIBE, this::handleSubscribeResponse);
     }
 
-    private void handleSubscribeResponse(String line) {
+    private void handleSubscribeResponse(StratumResponse response) {
+        if (response.hasError || response.resultElementCount() < 3) {
+            System.out.println("The mining host rejected the subscription");
+            transport.close();
+            return;
+        }
+
         System.out.println("SUBSCRIBED!");
         if (subscribeHandler != null) {
-            JsonArray result = parser.parse(line).getAsJsonObject().get("result").getAsJsonArray();
-            subscribeHandler.accept(Long.parseLong(result.get(1).getAsString(), 16), result.get(2).getAsInt());
+            subscribeHandler.accept(Long.parseLong(response.resultElement(1), 16), Integer.parseInt(response.resultElement(2)));
         }
 
+        int id = nextRequestId();
+        encoder.authorize(id);
+        send(id, MINING_AUTHORIZE, null);
+    }
 
-        RequestCommand request = new RequestCommand();
-        request.id = nextRequestId().toString();
-        request.method = "mining.authorize";
-        request.params = new String[] { this.username, ""};
+    private static final class PendingShare {
+        private final String jobId;
+        private final long extraNonce;
+        private final int timestamp;
+        private final int nonce;
 
-        try {
-            send(request);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void handleRequest(JsonObject json) {
-        if (json.get("method").getAsString().equals("mining.notify")) {
-            JsonArray params = json.getAsJsonArray("params");
-            StratumJob job = new StratumJob(
-                    params.get(0).getAsString(),
-                    Integer.parseInt(params.get(1).getAsString(), 16),
-                    Short.parseShort(params.get(2).getAsString(), 16),
-                    params.get(3).getAsString(),
-                    params.get(4).getAsString(),
-                    params.get(5).getAsString(),
-                    new String[] {
-                            params.get(6).getAsJsonArray().get(0).getAsString(),
-                            params.get(6).getAsJsonArray().get(1).getAsString(),
-                            params.get(6).getAsJsonArray().get(2).getAsString()
-                    },
-                    Integer.parseInt(params.get(7).getAsString(), 16),
-                    Integer.parseInt(params.get(8).getAsString(), 16));
-
-            if (jobHandler != null) {
-                jobHandler.accept(job);
-            }
-        } else if (json.get("method").getAsString().equals("mining.set_difficulty")) {
-            JsonArray params = json.getAsJsonArray("params");
+        private PendingShare(String jobId, long extraNonce, int timestamp, int nonce) {
+            this.jobId = jobId;
+            this.extraNonce = extraNonce;
+            this.timestamp = timestamp;
+            this.nonce = nonce;
+        }
+    }
 
-            if (difficultyChangedHandler != null) {
-                difficultyChangedHandler.accept(new BigInteger(params.get(0).getAsString()));
-            }
+    private static final class PendingRequest {
+        private final String method;
+        // Only set for shares
+        private final String jobId;
+        private final long sentAt;
+        // Not used for shares, which all go to handleSubmitResponse
+        private final Consumer<StratumResponse> callback;
+
+        private PendingRequest(String method, String jobId, long sentAt, Consumer<StratumResponse> callback) {
+            this.method = method;
+            this.jobId = jobId;
+            this.sentAt = sentAt;
+            this.callback = callback;
         }
     }
 }
@@ -5,6 +5,13 @@ import nodecore.miners.pow.Utility;
 import java.nio.ByteBuffer;
 
 public class StratumJob {
+    public static final int HEADER_SIZE = 64;
+    public static final int MERKLE_ROOT_OFFSET = 36;
+    public static final int MERKLE_ROOT_SIZE = 16;
+
+    private static final int PREVIOUS_HASH_SIZE = 12;
+    private static final int KEYSTONE_SIZE = 9;
+
     public final String jobId;
     public final int height;
     public final short version;
@@ -15,6 +22,12 @@ public class StratumJob {
     public final int time;
     public final int difficulty;
 
+    // Decoded once; the header is this template with the merkle root and timestamp filled in
+    private final byte[] headerTemplate;
+    private final byte[] metapackageMerkle;
+    // The transaction root doesn't depend on the extra-nonce
+    private final byte[] txRoot;
+
     public StratumJob(String jobId, int height, short version, String previousHash, String previousKeystone, String secondPreviousKeystone,
                       String[] intermediateMerkles, int time, int difficulty) {
         this.jobId = jobId;
@@ -26,33 +39,61 @@ public class StratumJob {
         this.intermediateMerkles = intermediateMerkles;
         this.time = time;
         this.difficulty = difficulty;
+
+        ByteBuffer template = ByteBuffer.allocate(HEADER_SIZE);
+        template.putInt(height);
+        template.putShort(version);
+        template.put(decode("previous hash", previousHash, PREVIOUS_HASH_SIZE));
+        template.put(decode("previous keystone", previousKeystone, KEYSTONE_SIZE));
+        template.put(decode("second previous keystone", secondPreviousKeystone, KEYSTONE_SIZE));
+        template.putInt(MERKLE_ROOT_OFFSET + MERKLE_ROOT_SIZE + 4, difficulty);
+        this.headerTemplate = template.array();
+
+        this.metapackageMerkle = Utility.hexToBytes(intermediateMerkles[2]);
+        this.txRoot = Utility.sha256(Utility.hexToBytes(intermediateMerkles[0]), Utility.hexToBytes(intermediateMerkles[1]));
+    }
+
+    private static byte[] decode(String name, String hex, int size) {
+        byte[] bytes = Utility.hexToBytes(hex);
+        if (bytes.length != size) {
+            throw new IllegalArgumentException("The " + name + " must be " + size + " bytes (called with " + hex + ")!");
+        }
+        return bytes;
     }
 
     public ByteBuffer constructPrototype(int timestamp, long extraNonce) {
-        // Calculate Merkle Root
-        byte[] merkleRoot = calculateMerkleRoot(extraNonce);
-
-        ByteBuffer buffer = ByteBuffer.allocate(64);
-        buffer.putInt(height);
-        buffer.putShort(version);
-        buffer.put(Utility.hexToBytes(previousHash));
-        buffer.put(Utility.hexToBytes(previousKeystone));
-        buffer.put(Utility.hexToBytes(secondPreviousKeystone));
-        buffer.put(merkleRoot);
-        buffer.putInt(timestamp);
-        buffer.putInt(difficulty);
+        byte[] header = new byte[HEADER_SIZE];
+        writeHeader(timestamp, extraNonce, new MerkleRootCalculator(), header);
+
+        // Positioned at the nonce, which is left for the caller to write
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        buffer.position(HEADER_SIZE - 4);
 
         return buffer;
     }
 
-    private byte[] calculateMerkleRoot(long extraNonce) {
-        byte[] txRoot = Utility.sha256(Utility.hexToBytes(intermediateMerkles[0]), Utility.hexToBytes(intermediateMerkles[1]));
-        byte[] metapackage = Utility.sha256(Utility.hexToBytes(intermediateMerkles[2]), Utility.longToByteArray(extraNonce));
+    /**
+     * Writes the full 64-byte header for the given timestamp and extra-nonce into {@code header}, with a
+     * zero nonce. Apart from the merkle root this is a copy of bytes decoded when the job arrived.
+     */
+    public void writeHeader(int timestamp, long extraNonce, MerkleRootCalculator calculator, byte[] header) {
+        System.arraycopy(headerTemplate, 0, header, 0, HEADER_SIZE);
+        calculator.calculate(this, extraNonce, header, MERKLE_ROOT_OFFSET);
+        ByteBuffer.wrap(header).putInt(MERKLE_ROOT_OFFSET + MERKLE_ROOT_SIZE, timestamp);
+    }
 
-        byte[] merkleRoot = Utility.sha256(metapackage, txRoot);
-        byte[] trimmed = new byte[16];
-        System.arraycopy(merkleRoot, 0, trimmed, 0, trimmed.length);
+    public byte[] calculateMerkleRoot(long extraNonce) {
+        byte[] trimmed = new byte[MERKLE_ROOT_SIZE];
+        new MerkleRootCalculator().calculate(this, extraNonce, trimmed, 0);
 
         return trimmed;
     }
+
+    byte[] getMetapackageMerkle() {
+        return metapackageMerkle;
+    }
+
+    byte[] getTxRoot() {
+        return txRoot;
+    }
 }
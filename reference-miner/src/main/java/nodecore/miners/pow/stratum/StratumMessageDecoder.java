@@ -0,0 +1,615 @@
+package nodecore.miners.pow.stratum;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes incoming Stratum lines straight from the receive buffer into typed calls on a {@link Handler}.
+ *
+ * A single pass over the line records where the "id", "method", "params", "result" and "error" values
+ * sit, then only the values the message needs are decoded. No JSON tree is built and the method name
+ * is matched on the raw bytes; the only allocations are the strings and objects handed to the handler.
+ * Not thread-safe; each connection owns one decoder.
+ */
+public class StratumMessageDecoder {
+    public interface Handler {
+        void onNotify(StratumJob job, boolean cleanJobs);
+
+        void onSetDifficulty(BigInteger difficulty);
+
+        /**
+         * Called for every response. {@code response} is reused and only valid during the call.
+         */
+        void onResponse(StratumResponse response);
+    }
+
+    private static final byte[] MINING_NOTIFY = "mining.notify".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MINING_SET_DIFFICULTY = "mining.set_difficulty".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_METHOD = "method".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_PARAMS = "params".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_RESULT = "result".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_ERROR = "error".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CODE = "code".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_MESSAGE = "message".getBytes(StandardCharsets.US_ASCII);
+
+    private final Handler handler;
+    private final StratumResponse response = new StratumResponse();
+    private char[] chars = new char[256];
+
+    private ByteBuffer in;
+    private int pos;
+    private int end;
+
+    // Start offsets of the top-level values, or -1 when absent
+    private int idAt;
+    private int methodAt;
+    private int paramsAt;
+    private int resultAt;
+    private int errorAt;
+
+    public StratumMessageDecoder(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Decodes one line, from the frame's position to its limit. The frame's position is not changed.
+     *
+     * @throws IllegalArgumentException If the line is not a well-formed Stratum message
+     */
+    public void decode(ByteBuffer frame) {
+        in = frame;
+        pos = frame.position();
+        end = frame.limit();
+        idAt = methodAt = paramsAt = resultAt = errorAt = -1;
+
+        try {
+            scanTopLevel();
+
+            if (methodAt >= 0 && !isNull(methodAt)) {
+                decodeRequest();
+            } else {
+                decodeResponse();
+            }
+        } finally {
+            in = null;
+        }
+    }
+
+    private void scanTopLevel() {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            int keyStart = pos + 1;
+            skipString();
+            int keyEnd = pos - 1;
+
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            int valueAt = pos;
+            skipValue();
+
+            if (keyIs(keyStart, keyEnd, KEY_ID)) {
+                idAt = valueAt;
+            } else if (keyIs(keyStart, keyEnd, KEY_METHOD)) {
+                methodAt = valueAt;
+            } else if (keyIs(keyStart, keyEnd, KEY_PARAMS)) {
+                paramsAt = valueAt;
+            } else if (keyIs(keyStart, keyEnd, KEY_RESULT)) {
+                resultAt = valueAt;
+            } else if (keyIs(keyStart, keyEnd, KEY_ERROR)) {
+                errorAt = valueAt;
+            }
+
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+                continue;
+            }
+            expect('}');
+            return;
+        }
+    }
+
+    private void decodeRequest() {
+        pos = methodAt;
+        if (peek() != '"') {
+            throw malformed("method is not a string");
+        }
+        int nameStart = pos + 1;
+        skipString();
+        int nameEnd = pos - 1;
+
+        if (keyIs(nameStart, nameEnd, MINING_NOTIFY)) {
+            decodeNotify();
+        } else if (keyIs(nameStart, nameEnd, MINING_SET_DIFFICULTY)) {
+            decodeSetDifficulty();
+        }
+        // Other notifications (client.reconnect, client.show_message, ...) are not supported
+    }
+
+    private void decodeNotify() {
+        startParams();
+
+        String jobId = readString();
+        nextElement();
+        int height = readHexInt();
+        nextElement();
+        short version = (short) readHexInt();
+        nextElement();
+        String previousHash = readString();
+        nextElement();
+        String previousKeystone = readString();
+        nextElement();
+        String secondPreviousKeystone = readString();
+        nextElement();
+
+        String[] intermediateMerkles = new String[3];
+        skipWhitespace();
+        expect('[');
+        for (int i = 0; i < intermediateMerkles.length; i++) {
+            if (i > 0) {
+                nextElement();
+            }
+            skipWhitespace();
+            intermediateMerkles[i] = readString();
+        }
+        skipWhitespace();
+        expect(']');
+        nextElement();
+
+        int time = readHexInt();
+        nextElement();
+        int difficulty = readHexInt();
+
+        // clean_jobs is optional and defaults to true, as every job from the reference pool is clean
+        boolean cleanJobs = true;
+        skipWhitespace();
+        if (peek() == ',') {
+            pos++;
+            skipWhitespace();
+            cleanJobs = readBoolean();
+        }
+
+        handler.onNotify(new StratumJob(jobId, height, version, previousHash, previousKeystone, secondPreviousKeystone,
+                intermediateMerkles, time, difficulty), cleanJobs);
+    }
+
+    private void decodeSetDifficulty() {
+        startParams();
+
+        String value = peek() == '"' ? readString() : readToken();
+        BigInteger difficulty;
+        if (value.length() > 0 && value.length() < 19 && isDigits(value)) {
+            difficulty = BigInteger.valueOf(Long.parseLong(value));
+        } else {
+            try {
+                difficulty = new BigInteger(value);
+            } catch (NumberFormatException e) {
+                throw malformed("difficulty " + value + " is not an integer");
+            }
+        }
+
+        handler.onSetDifficulty(difficulty);
+    }
+
+    private void decodeResponse() {
+        response.reset();
+
+        if (idAt >= 0) {
+            pos = idAt;
+            if (peek() == '"') {
+                pos++;
+                response.id = readDecimalUntil('"');
+            } else if (!isNull(idAt)) {
+                response.id = readDecimalUntil(',');
+            }
+        }
+
+        if (resultAt >= 0) {
+            pos = resultAt;
+            byte first = peek();
+            if (first == '[') {
+                response.result = true;
+                readResultElements();
+            } else {
+                response.result = !isNull(resultAt) && first != 'f';
+            }
+        }
+
+        if (errorAt >= 0 && !isNull(errorAt)) {
+            response.hasError = true;
+            pos = errorAt;
+            readError();
+        }
+
+        handler.onResponse(response);
+    }
+
+    private void readResultElements() {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            byte first = peek();
+            if (first == '"') {
+                response.addResultElement(readString());
+            } else if (first == '[' || first == '{') {
+                skipValue();
+                response.addResultElement(null);
+            } else {
+                response.addResultElement(readToken());
+            }
+
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+                continue;
+            }
+            expect(']');
+            return;
+        }
+    }
+
+    private void readError() {
+        byte first = peek();
+        if (first == '[') {
+            // [code, "message", traceback]
+            pos++;
+            skipWhitespace();
+            response.errorCode = readDecimalUntil(',');
+            nextElement();
+            response.errorMessage = peek() == '"' ? readString() : readToken();
+        } else if (first == '{') {
+            // {"code": code, "message": "message"}
+            pos++;
+            while (true) {
+                skipWhitespace();
+                int keyStart = pos + 1;
+                skipString();
+                int keyEnd = pos - 1;
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+
+                if (keyIs(keyStart, keyEnd, KEY_CODE)) {
+                    response.errorCode = readDecimalUntil(',');
+                } else if (keyIs(keyStart, keyEnd, KEY_MESSAGE) && peek() == '"') {
+                    response.errorMessage = readString();
+                } else {
+                    skipValue();
+                }
+
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                    continue;
+                }
+                expect('}');
+                return;
+            }
+        } else {
+            response.errorMessage = first == '"' ? readString() : readToken();
+        }
+    }
+
+    private void startParams() {
+        if (paramsAt < 0) {
+            throw malformed("params are missing");
+        }
+        pos = paramsAt;
+        expect('[');
+        skipWhitespace();
+    }
+
+    private void nextElement() {
+        skipWhitespace();
+        expect(',');
+        skipWhitespace();
+    }
+
+    private String readString() {
+        expect('"');
+        int length = 0;
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                break;
+            }
+
+            char c;
+            if (b == '\\') {
+                c = readEscape();
+            } else if (b >= 0) {
+                c = (char) b;
+            } else {
+                // Multi-byte UTF-8 only appears in free-text fields; decode those the slow way
+                return readUtf8String();
+            }
+
+            if (length == chars.length) {
+                char[] grown = new char[chars.length * 2];
+                System.arraycopy(chars, 0, grown, 0, length);
+                chars = grown;
+            }
+            chars[length++] = c;
+        }
+        return new String(chars, 0, length);
+    }
+
+    private String readUtf8String() {
+        // Rewind to the opening quote and decode the raw bytes, handling escapes afterwards
+        int start = pos;
+        while (in.get(start - 1) != '"' || isEscaped(start - 1)) {
+            start--;
+        }
+        pos = start;
+        skipStringBody();
+        byte[] raw = new byte[pos - 1 - start];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = in.get(start + i);
+        }
+        return unescape(new String(raw, StandardCharsets.UTF_8));
+    }
+
+    private char readEscape() {
+        byte b = next();
+        switch (b) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    value = (value << 4) | hexValue(next());
+                }
+                return (char) value;
+            default:
+                throw malformed("invalid escape \\" + (char) b);
+        }
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+
+        StringBuilder builder = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 >= s.length()) {
+                builder.append(c);
+                continue;
+            }
+
+            char e = s.charAt(++i);
+            switch (e) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    if (i + 4 < s.length()) {
+                        builder.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    break;
+                default: builder.append(e);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads a quoted hexadecimal string as an int, e.g. "05f5e100".
+     */
+    private int readHexInt() {
+        expect('"');
+        int value = 0;
+        int digits = 0;
+        byte b;
+        while ((b = next()) != '"') {
+            value = (value << 4) | hexValue(b);
+            digits++;
+        }
+        if (digits == 0 || digits > 8) {
+            throw malformed("expected up to 8 hex digits, found " + digits);
+        }
+        return value;
+    }
+
+    private boolean readBoolean() {
+        byte b = peek();
+        if (b == 't' || b == 'f') {
+            skipValue();
+            return b == 't';
+        }
+        throw malformed("expected a boolean");
+    }
+
+    /**
+     * Reads a non-negative decimal number, optionally quoted, stopping at {@code terminator}, a
+     * closing bracket or whitespace. Returns NO_ID if it is not a number.
+     */
+    private int readDecimalUntil(char terminator) {
+        skipWhitespace();
+        boolean quoted = peek() == '"';
+        if (quoted) {
+            pos++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        while (pos < end) {
+            byte b = peek();
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            digits++;
+            pos++;
+        }
+
+        if (quoted) {
+            skipStringBody();
+        } else if (digits == 0) {
+            skipValue();
+        }
+
+        if (digits == 0 || digits > 9 || (pos < end && !quoted && peek() != terminator && !isDelimiter(peek()))) {
+            return StratumResponse.NO_ID;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads an unquoted scalar (number, true, false or null) as text.
+     */
+    private String readToken() {
+        int start = pos;
+        skipValue();
+        int length = pos - start;
+        if (length > chars.length) {
+            chars = new char[length];
+        }
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) in.get(start + i);
+        }
+        return new String(chars, 0, length);
+    }
+
+    private void skipValue() {
+        byte b = peek();
+        if (b == '"') {
+            skipString();
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+                b = next();
+                if (b == '"') {
+                    skipStringBody();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            while (pos < end && !isDelimiter(peek())) {
+                pos++;
+            }
+        }
+    }
+
+    private void skipString() {
+        expect('"');
+        skipStringBody();
+    }
+
+    private void skipStringBody() {
+        byte b;
+        while ((b = next()) != '"') {
+            if (b == '\\') {
+                next();
+            }
+        }
+    }
+
+    private boolean isEscaped(int quoteAt) {
+        int backslashes = 0;
+        for (int i = quoteAt - 1; i >= 0 && in.get(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return (backslashes & 1) == 1;
+    }
+
+    private boolean isNull(int valueAt) {
+        return in.get(valueAt) == 'n';
+    }
+
+    private boolean keyIs(int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (in.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = in.get(pos);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw malformed("expected '" + c + "' at offset " + (pos - 1 - in.position()));
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw malformed("unexpected end of line");
+        }
+        return in.get(pos);
+    }
+
+    private byte next() {
+        if (pos >= end) {
+            throw malformed("unexpected end of line");
+        }
+        return in.get(pos++);
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == ']' || b == '}' || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hexValue(byte b) {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        throw malformed("invalid hex digit '" + (char) b + "'");
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed Stratum message: " + reason);
+    }
+}
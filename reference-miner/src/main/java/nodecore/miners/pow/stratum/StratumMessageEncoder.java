@@ -0,0 +1,207 @@
+package nodecore.miners.pow.stratum;
+
+import nodecore.miners.pow.Utility;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes outgoing Stratum requests as JSON lines straight into a reusable byte array, the counterpart
+ * of {@link StratumMessageDecoder}. A share is written with table lookups for its hex fields and no
+ * intermediate strings, so encoding allocates nothing once the array has grown to the batch size.
+ * Requests accumulate until {@link #takeFrame} copies them out as one frame for the transport, which
+ * keeps the buffers it is given.
+ *
+ * The lines have the layout Gson gave the requests before,
+ * {@code {"method":...,"params":[...],"id":"n"}} with upper-case hex. Not thread-safe;
+ * {@link StratumClient} uses it on the I/O thread.
+ */
+public class StratumMessageEncoder {
+    private static final byte[] METHOD_PREFIX = ascii("{\"method\":\"");
+    private static final byte[] PARAMS_PREFIX = ascii("\",\"params\":[");
+    private static final byte[] ID_PREFIX = ascii("],\"id\":\"");
+    private static final byte[] LINE_END = ascii("\"}\n");
+
+    private static final byte[] MINING_SUBMIT = ascii("mining.submit");
+    private static final byte[] MINING_SUBSCRIBE = ascii("mining.subscribe");
+    private static final byte[] MINING_AUTHORIZE = ascii("mining.authorize");
+    private static final byte[] MINING_SUGGEST_DIFFICULTY = ascii("mining.suggest_difficulty");
+
+    // Both hex digits of every byte value, high digit first
+    private static final byte[] HEX_PAIRS = new byte[512];
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[i * 2] = (byte) Utility.HEX_ALPHABET_ARRAY[i >>> 4];
+            HEX_PAIRS[i * 2 + 1] = (byte) Utility.HEX_ALPHABET_ARRAY[i & 0xF];
+        }
+    }
+
+    // The username as a quoted JSON string, written into every submit and authorize
+    private final byte[] username;
+
+    private byte[] out = new byte[1024];
+    private int size;
+
+    public StratumMessageEncoder(String username) {
+        writeString(username);
+        this.username = Arrays.copyOf(out, size);
+        size = 0;
+    }
+
+    /**
+     * The number of bytes written since the last {@link #takeFrame}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends {@code mining.submit} for a share, with the extra-nonce, timestamp and nonce in big-endian
+     * hex.
+     */
+    public void submit(int id, String jobId, long extraNonce, int timestamp, int nonce) {
+        begin(MINING_SUBMIT);
+        write(username);
+        write((byte) ',');
+        writeString(jobId);
+        ensure(46);
+        out[size++] = ',';
+        out[size++] = '"';
+        writeHex(extraNonce);
+        out[size++] = '"';
+        out[size++] = ',';
+        out[size++] = '"';
+        writeHex(timestamp);
+        out[size++] = '"';
+        out[size++] = ',';
+        out[size++] = '"';
+        writeHex(nonce);
+        out[size++] = '"';
+        end(id);
+    }
+
+    public void subscribe(int id) {
+        begin(MINING_SUBSCRIBE);
+        end(id);
+    }
+
+    /**
+     * Appends {@code mining.authorize} for the username, with an empty password.
+     */
+    public void authorize(int id) {
+        begin(MINING_AUTHORIZE);
+        write(username);
+        write((byte) ',');
+        writeString("");
+        end(id);
+    }
+
+    public void suggestDifficulty(int id, String difficulty) {
+        begin(MINING_SUGGEST_DIFFICULTY);
+        writeString(difficulty);
+        end(id);
+    }
+
+    /**
+     * Returns everything written since the last call as one frame, and starts over.
+     */
+    public ByteBuffer takeFrame() {
+        ByteBuffer frame = ByteBuffer.wrap(Arrays.copyOf(out, size));
+        size = 0;
+        return frame;
+    }
+
+    /**
+     * Discards everything written since the last {@link #takeFrame}.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private void begin(byte[] method) {
+        write(METHOD_PREFIX);
+        write(method);
+        write(PARAMS_PREFIX);
+    }
+
+    private void end(int id) {
+        write(ID_PREFIX);
+        // Request ids are positive and count up, so at most 10 digits
+        ensure(10 + LINE_END.length);
+        int digits = 1;
+        for (int rest = id / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int at = size + digits - 1; at >= size; at--) {
+            out[at] = (byte) ('0' + id % 10);
+            id /= 10;
+        }
+        size += digits;
+        write(LINE_END);
+    }
+
+    private void writeHex(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            int pair = ((int) (value >>> shift) & 0xFF) << 1;
+            out[size++] = HEX_PAIRS[pair];
+            out[size++] = HEX_PAIRS[pair + 1];
+        }
+    }
+
+    private void writeHex(int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            int pair = ((value >>> shift) & 0xFF) << 1;
+            out[size++] = HEX_PAIRS[pair];
+            out[size++] = HEX_PAIRS[pair + 1];
+        }
+    }
+
+    /**
+     * Writes a quoted JSON string, escaping quotes, backslashes and control characters. Characters
+     * outside ASCII are rare here (usernames and job ids), so they take the slow path through UTF-8.
+     */
+    private void writeString(String value) {
+        int length = value.length();
+        ensure(length + 2);
+        out[size++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // Keep surrogate pairs together
+                int end = Character.isHighSurrogate(c) && i + 1 < length ? i + 2 : i + 1;
+                write(value.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                i = end - 1;
+            } else if (c == '"' || c == '\\') {
+                write((byte) '\\');
+                write((byte) c);
+            } else if (c < 0x20) {
+                write(ascii(String.format("\\u%04x", (int) c)));
+            } else {
+                write((byte) c);
+            }
+        }
+        write((byte) '"');
+    }
+
+    private void write(byte b) {
+        ensure(1);
+        out[size++] = b;
+    }
+
+    private void write(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, out, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensure(int more) {
+        if (size + more > out.length) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, size + more));
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,94 +1,165 @@
 package nodecore.miners.pow.stratum;
 
+import nodecore.miners.pow.HashTarget;
 import nodecore.miners.pow.Utility;
 import nodecore.miners.pow.VBlake;
+import nodecore.miners.pow.VBlakeHasher;
+import nodecore.miners.pow.cpu.WorkerScheduler;
+import nodecore.miners.pow.metrics.MinerMetrics;
+import nodecore.miners.pow.metrics.WorkerMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigInteger;
-import java.nio.ByteBuffer;
 import java.time.Instant;
-import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 public class StratumMiningThread extends Thread {
     private static final Logger logger = LoggerFactory.getLogger(StratumMiningThread.class);
 
-    private static final BigInteger MAX_TARGET = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 16);
-    private final Consumer<StratumJob, Long, byte[]> submitFunc;
-    private boolean running = false;
-    private AtomicBoolean jobUpdated = new AtomicBoolean(false);
-    private long extraNonce;
-    private StratumJob job;
-
-    private BigInteger target;
-    public void setDifficulty(BigInteger difficulty) {
-        target = MAX_TARGET.divide(difficulty);
-    }
-
-    public void setExtraNonce(long extraNonce) {
-        this.extraNonce = extraNonce;
+    // Nonces hashed between checks for a new job or shutdown, unless tuned otherwise
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+    // The timestamp is refreshed about every this many nonces
+    private static final int TIMESTAMP_REFRESH_NONCES = 10 * DEFAULT_CHUNK_SIZE;
+
+    private final Consumer<StratumClient, PreparedHeader, Integer> submitFunc;
+    private final WorkAssignments assignments;
+    private final MinerMetrics metrics;
+    private final WorkerMetrics workerMetrics;
+    private final int index;
+    private final long[] v = new long[16];
+    private final long[] h = new long[3];
+    private final int[] found = new int[16];
+    private final byte[] hash = new byte[VBlakeHasher.HASH_SIZE];
+    private final MerkleRootCalculator merkleRoots = new MerkleRootCalculator();
+    private volatile boolean running = false;
+    private WorkerScheduler scheduler;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Sets the scheduler that places this thread on a CPU and lowers its priority once it runs. Optional;
+     * must be called before the thread is started.
+     */
+    public void setScheduler(WorkerScheduler scheduler) {
+        this.scheduler = scheduler;
     }
 
-    public void setJob(StratumJob job) {
-        this.job = job;
-        this.jobUpdated.set(true);
+    /**
+     * Sets the number of nonces hashed between checks for new work. Must be called before the thread is
+     * started.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive (called with " + chunkSize + ")!");
+        }
+        this.chunkSize = chunkSize;
     }
 
-    StratumMiningThread(Consumer<StratumJob, Long, byte[]> submitFunc) {
+    StratumMiningThread(Consumer<StratumClient, PreparedHeader, Integer> submitFunc, WorkAssignments assignments, MinerMetrics metrics, int index) {
         this.submitFunc = submitFunc;
+        this.assignments = assignments;
+        this.metrics = metrics;
+        this.workerMetrics = metrics.worker(index);
+        this.index = index;
     }
 
     @Override
     public void run() {
         running = true;
 
-        // Await work
+        if (scheduler != null) {
+            scheduler.onWorkerStarted(index);
+        }
+
+        // Kept across jobs of a pool session: a new job changes the merkle root, so its headers can't
+        // repeat the old ones
+        WorkPartitioner partitioner = null;
+        WorkRange range = null;
+        long nonce = 0;
+
+        boolean hashing = false;
+        int refreshChunks = Math.max(1, TIMESTAMP_REFRESH_NONCES / chunkSize);
+
         while (running) {
-            if (job == null) {
-                try {
-                    Thread.sleep(3000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            // Await work
+            WorkSnapshot snapshot;
+            try {
+                snapshot = assignments.awaitJob(index);
+            } catch (InterruptedException e) {
+                // Woken by shutdown
                 continue;
             }
 
-            int timestamp = (int) Instant.now().getEpochSecond();
-            ByteBuffer work = job.constructPrototype(timestamp, this.extraNonce);
+            if (snapshot.partitioner != partitioner) {
+                // Another pool session, with a search space of its own
+                partitioner = snapshot.partitioner;
+                range = partitioner.first(index);
+                nonce = range.firstNonce;
+            }
 
-            int iterationCount = 1;
-            for (int nonce = Integer.MIN_VALUE; nonce < Integer.MAX_VALUE; nonce++) {
-                if (!running) break;
+            StratumClient client = snapshot.client;
+            PreparedHeader work = new PreparedHeader(snapshot.job, (int) Instant.now().getEpochSecond(), range.extraNonce, merkleRoots);
+            HashTarget target = snapshot.target;
+            metrics.workerSwitched(work.job);
+
+            int chunkCount = 0;
+            while (running) {
+                if (nonce >= range.endNonce) {
+                    // Exhausted: roll on to the next range without leaving the job
+                    range = partitioner.after(range);
+                    nonce = range.firstNonce;
+                    work.setExtraNonce(range.extraNonce, merkleRoots);
+                    logger.debug("Moving on to {}", range);
+                }
 
-                if (jobUpdated.get()) {
-                    jobUpdated.set(false);
-                    break;
+                // Two volatile reads per chunk; a new epoch is a new job, a new target or another account
+                WorkSnapshot latest = assignments.current(index);
+                if (latest.epoch != snapshot.epoch) {
+                    if (latest.job != snapshot.job) {
+                        // Start the range over on the new job
+                        nonce = range.firstNonce;
+                        break;
+                    }
+                    snapshot = latest;
+                    target = latest.target;
                 }
 
                 // Periodically update the timestamp
-                if (iterationCount == 10000) {
-                    iterationCount = 0;
-                    timestamp = (int) Instant.now().getEpochSecond();
-                    work.putInt(52, timestamp);
+                if (++chunkCount == refreshChunks) {
+                    chunkCount = 0;
+                    work.setTimestamp((int) Instant.now().getEpochSecond());
                 }
 
-                work.putInt(60, nonce);
-                byte[] hash = VBlake.hash(work.array());
-                BigInteger hashVal = new BigInteger(1, hash);
-                if (hashVal.compareTo(this.target) < 0) {
-                    logger.info("Header: {}", Utility.bytesToHex(work.array()));
-                    logger.info("Found share: {}", Utility.bytesToHex(hash));
-                    // Submit Share
-                    this.submitFunc.accept(this.job, this.extraNonce, Arrays.copyOf(work.array(), 64));
+                int count = (int) Math.min(chunkSize, range.endNonce - nonce);
+                int hits = work.hashBatch((int) nonce, count, target, found, v, h);
+                for (int i = 0; i < hits; i++) {
+                    submit(client, work, (int) nonce + found[i]);
                 }
 
-                iterationCount++;
+                // A full result array means the batch stopped early at the last share
+                int hashed = hits == found.length ? found[hits - 1] + 1 : count;
+                workerMetrics.addHashes(hashed);
+                client.countHashes(hashed);
+                nonce += hashed;
+
+                if (!hashing) {
+                    hashing = true;
+                    metrics.firstHash();
+                }
             }
         }
     }
 
+    private void submit(StratumClient client, PreparedHeader work, int nonce) {
+        work.hash(nonce, v, h);
+        VBlake.recombineB2Bh(h, hash, 0);
+        logger.info("Header: {}", Utility.bytesToHex(work.toHeader(nonce)));
+        logger.info("Found share: {}", Utility.bytesToHex(hash));
+        // Submit Share
+        this.submitFunc.accept(client, work, nonce);
+    }
+
     public void shutdown() {
         this.running = false;
+        // Wakes the thread if it is still waiting for its first job
+        interrupt();
     }
 }
@@ -0,0 +1,59 @@
+package nodecore.miners.pow.stratum;
+
+/**
+ * A decoded response to one of our requests.
+ *
+ * The decoder reuses a single instance, so a response is only valid for the duration of the handler
+ * call it is passed to.
+ */
+public class StratumResponse {
+    public static final int NO_ID = -1;
+    private static final int MAX_RESULT_ELEMENTS = 8;
+
+    private final String[] resultElements = new String[MAX_RESULT_ELEMENTS];
+    private int resultElementCount;
+
+    // The request id, or NO_ID if it was null or not numeric
+    public int id;
+
+    // Whether "result" was present and neither null nor false
+    public boolean result;
+
+    public boolean hasError;
+    public int errorCode;
+    public String errorMessage;
+
+    /**
+     * The number of top-level elements kept when the result is an array.
+     */
+    public int resultElementCount() {
+        return resultElementCount;
+    }
+
+    /**
+     * A top-level element of an array result as its raw text, without quotes for strings. Nested
+     * arrays and objects are reported as null.
+     */
+    public String resultElement(int index) {
+        return index < resultElementCount ? resultElements[index] : null;
+    }
+
+    void reset() {
+        for (int i = 0; i < resultElementCount; i++) {
+            resultElements[i] = null;
+        }
+        resultElementCount = 0;
+        id = NO_ID;
+        result = false;
+        hasError = false;
+        errorCode = 0;
+        errorMessage = null;
+    }
+
+    void addResultElement(String element) {
+        // Stratum results are short; anything past the first few elements is never read
+        if (resultElementCount < MAX_RESULT_ELEMENTS) {
+            resultElements[resultElementCount++] = element;
+        }
+    }
+}
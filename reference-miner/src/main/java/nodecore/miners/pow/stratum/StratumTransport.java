@@ -0,0 +1,57 @@
+package nodecore.miners.pow.stratum;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A newline-delimited connection to a Stratum pool.
+ */
+public interface StratumTransport {
+    /**
+     * Starts connecting and delivering incoming frames to {@code listener}. The listener's
+     * {@link FrameListener#onClosed} is called exactly once, whether the connection fails, is dropped or
+     * is closed locally.
+     */
+    void open(FrameListener listener);
+
+    /**
+     * Queues a complete, newline-terminated frame for writing. Never blocks; returns false if the
+     * outbound queue is full or the transport is closed, in which case the frame is dropped.
+     */
+    boolean send(ByteBuffer frame);
+
+    /**
+     * Runs {@code task} on the thread that delivers events to the listener, so it never runs
+     * concurrently with a listener callback.
+     */
+    void execute(Runnable task);
+
+    /**
+     * Like {@link #execute}, once {@code delay} has passed.
+     */
+    void schedule(Runnable task, long delay, TimeUnit unit);
+
+    void close();
+
+    boolean isOpen();
+
+    /**
+     * Creates a new, unopened transport for each connection attempt.
+     */
+    interface Factory {
+        StratumTransport create(InetSocketAddress address);
+    }
+
+    interface FrameListener {
+        void onConnected();
+
+        /**
+         * Called for every incoming line, without its line terminator. {@code frame} is positioned at
+         * the start of the line and limited at its end, and is only valid for the duration of the call.
+         */
+        void onFrame(ByteBuffer frame);
+
+        void onClosed(Throwable cause);
+    }
+}
@@ -0,0 +1,79 @@
+package nodecore.miners.pow.stratum;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Which account's {@link WorkBroadcast} each mining thread takes its work from.
+ *
+ * A worker looks its broadcast up on every check for new work, so moving it to another account takes
+ * effect within one chunk, like any other new job. Only workers whose broadcast has no job yet block,
+ * and they are woken when it gets one or when they are moved.
+ */
+public class WorkAssignments {
+    private final AtomicReferenceArray<WorkBroadcast> broadcasts;
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    public WorkAssignments(int workerCount, WorkBroadcast initial) {
+        this.broadcasts = new AtomicReferenceArray<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            broadcasts.set(i, initial);
+        }
+    }
+
+    public int size() {
+        return broadcasts.length();
+    }
+
+    public WorkBroadcast get(int workerIndex) {
+        return broadcasts.get(workerIndex);
+    }
+
+    public WorkSnapshot current(int workerIndex) {
+        return broadcasts.get(workerIndex).current();
+    }
+
+    /**
+     * Blocks until the worker's broadcast has a job and returns its current snapshot.
+     *
+     * @throws InterruptedException If the waiting thread is interrupted, which is how workers are
+     *                              woken for shutdown
+     */
+    public WorkSnapshot awaitJob(int workerIndex) throws InterruptedException {
+        WorkSnapshot snapshot = current(workerIndex);
+        if (snapshot.hasJob()) {
+            return snapshot;
+        }
+
+        lock.lockInterruptibly();
+        try {
+            while (!(snapshot = current(workerIndex)).hasJob()) {
+                changed.await();
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void assign(int workerIndex, WorkBroadcast broadcast) {
+        if (broadcasts.getAndSet(workerIndex, broadcast) != broadcast) {
+            wake();
+        }
+    }
+
+    /**
+     * Wakes every waiting worker to look at its broadcast again.
+     */
+    public void wake() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
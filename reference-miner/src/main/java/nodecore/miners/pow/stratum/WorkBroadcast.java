@@ -0,0 +1,45 @@
+package nodecore.miners.pow.stratum;
+
+import nodecore.miners.pow.HashTarget;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the current {@link WorkSnapshot} of one account to the mining threads through a single
+ * atomic reference.
+ *
+ * Publishing never waits on the workers and workers never lock while hashing: each one reads
+ * {@link #current} once per nonce chunk, so a new job or difficulty reaches all threads within one
+ * chunk of being published, however many threads there are. Threads with no job yet wait in
+ * {@link WorkAssignments#awaitJob}, which the first published job wakes.
+ */
+public class WorkBroadcast {
+    private final AtomicReference<WorkSnapshot> current = new AtomicReference<>(WorkSnapshot.INITIAL);
+    private final Runnable firstJobListener;
+
+    /**
+     * @param firstJobListener Called once the first job has been published
+     */
+    public WorkBroadcast(Runnable firstJobListener) {
+        this.firstJobListener = firstJobListener;
+    }
+
+    public WorkSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Publishes a job together with the pool session it belongs to and that session's target.
+     */
+    public WorkSnapshot publishWork(StratumClient client, WorkPartitioner partitioner, StratumJob job, HashTarget target) {
+        WorkSnapshot previous = current.getAndUpdate(snapshot -> snapshot.withWork(client, partitioner, job, target));
+        if (!previous.hasJob()) {
+            firstJobListener.run();
+        }
+        return current.get();
+    }
+
+    public WorkSnapshot publishTarget(HashTarget target) {
+        return current.updateAndGet(snapshot -> snapshot.withTarget(target));
+    }
+}
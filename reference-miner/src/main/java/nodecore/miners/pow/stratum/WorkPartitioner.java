@@ -0,0 +1,112 @@
+package nodecore.miners.pow.stratum;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the search space a pool assigns to one connection into disjoint {@link WorkRange}s.
+ *
+ * The pool's extra-nonce is taken as the first of the consecutive extra-nonces the connection may
+ * use: 2^(8 * size) of them for a size below 8 bytes. The VeriBlock stratum server instead sends size
+ * 8, the full width of the extra-nonce, and hands each session an extra-nonce
+ * {@link #FULL_WIDTH_EXTRA_NONCES} above the last one (its ExtranonceCounter), so at full width only
+ * that many are used; more would run into the next session's. Connections to such a pool stay
+ * disjoint only as long as it keeps that spacing.
+ *
+ * Every extra-nonce gives a different merkle root, so ranges with different extra-nonces never hash
+ * the same header. When there are fewer extra-nonces than workers, the nonce space of each extra-nonce
+ * is also cut into equal slices, enough that every worker can hold a range of its own.
+ *
+ * By default ranges are handed out in order from a single counter, so no two callers get the same
+ * range until the whole space has been used. Only then does it start over, by which time the header
+ * timestamp has moved on. In rolling mode each worker instead owns a stride of the extra-nonces
+ * (worker i of n uses base + i, base + i + n, ...) and rolls to its next one without touching shared
+ * state, wrapping within its own stride. Rolling needs at least one extra-nonce per worker, so with a
+ * smaller space the partitioner stays on the counter. Safe to use from any number of threads.
+ */
+public class WorkPartitioner {
+    private static final long NONCE_SPACE = 1L << 32;
+
+    // Extra-nonces used when the pool gives the full 8-byte width: the spacing between sessions of the
+    // VeriBlock stratum server
+    public static final long FULL_WIDTH_EXTRA_NONCES = 1000000;
+
+    private final long baseExtraNonce;
+    // Number of usable extra-nonces
+    private final long extraNonceCount;
+    private final int slicesPerExtraNonce;
+    private final long sliceSize;
+    private final int workerCount;
+    private final boolean rolling;
+    private final AtomicLong nextRange = new AtomicLong();
+
+    public WorkPartitioner(long baseExtraNonce, int extraNonceSize, int workerCount) {
+        this(baseExtraNonce, extraNonceSize, workerCount, false);
+    }
+
+    public WorkPartitioner(long baseExtraNonce, int extraNonceSize, int workerCount, boolean rolling) {
+        this.baseExtraNonce = baseExtraNonce;
+        this.workerCount = Math.max(1, workerCount);
+        this.extraNonceCount = extraNonceSize >= 8 ? FULL_WIDTH_EXTRA_NONCES : 1L << (8 * Math.max(0, extraNonceSize));
+
+        int slices = 1;
+        while (slices < NONCE_SPACE && extraNonceCount * slices < workerCount) {
+            slices <<= 1;
+        }
+        this.slicesPerExtraNonce = slices;
+        this.sliceSize = NONCE_SPACE / slices;
+        this.rolling = rolling && slices == 1;
+    }
+
+    /**
+     * Returns the first range for the worker with the given index.
+     */
+    public WorkRange first(int workerIndex) {
+        if (!rolling) {
+            return next();
+        }
+        return fullRange(extraNonceAt(workerIndex));
+    }
+
+    /**
+     * Returns the range to move on to once {@code range} is exhausted.
+     */
+    public WorkRange after(WorkRange range) {
+        if (!rolling) {
+            return next();
+        }
+        long next = range.extraNonce - baseExtraNonce + workerCount;
+        if (next >= extraNonceCount) {
+            // Back to the start of this worker's own stride, so strides never overlap
+            next %= workerCount;
+        }
+        return fullRange(extraNonceAt(next));
+    }
+
+    /**
+     * Returns a range no other caller holds.
+     */
+    public WorkRange next() {
+        long index = nextRange.getAndIncrement();
+
+        long extraNonceIndex = (index / slicesPerExtraNonce) % extraNonceCount;
+
+        long firstNonce = Integer.MIN_VALUE + (index % slicesPerExtraNonce) * sliceSize;
+        return new WorkRange(baseExtraNonce + extraNonceIndex, firstNonce, firstNonce + sliceSize);
+    }
+
+    private long extraNonceAt(long index) {
+        return baseExtraNonce + index % extraNonceCount;
+    }
+
+    private static WorkRange fullRange(long extraNonce) {
+        return new WorkRange(extraNonce, Integer.MIN_VALUE, Integer.MIN_VALUE + NONCE_SPACE);
+    }
+
+    public int getSlicesPerExtraNonce() {
+        return slicesPerExtraNonce;
+    }
+
+    public boolean isRolling() {
+        return rolling;
+    }
+}
@@ -0,0 +1,26 @@
+package nodecore.miners.pow.stratum;
+
+/**
+ * One unit of search space: an extra-nonce and the nonces [firstNonce, endNonce) to try with it.
+ * Nonces are the header's signed 32-bit values, held as longs so the end of the full range fits.
+ */
+public final class WorkRange {
+    public final long extraNonce;
+    public final long firstNonce;
+    public final long endNonce;
+
+    WorkRange(long extraNonce, long firstNonce, long endNonce) {
+        this.extraNonce = extraNonce;
+        this.firstNonce = firstNonce;
+        this.endNonce = endNonce;
+    }
+
+    public long size() {
+        return endNonce - firstNonce;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("extra-nonce %016X, nonces %08X..%08X", extraNonce, (int) firstNonce, (int) (endNonce - 1));
+    }
+}
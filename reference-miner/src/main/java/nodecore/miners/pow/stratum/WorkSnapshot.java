@@ -0,0 +1,46 @@
+package nodecore.miners.pow.stratum;
+
+import nodecore.miners.pow.HashTarget;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Everything a mining thread needs to know about the current work, published as one immutable value.
+ *
+ * Each published snapshot gets a new epoch, unique across all broadcasts, so a worker can tell whether
+ * anything changed (including being moved to another account's broadcast) by comparing a single long. The client and partitioner identify the pool session the job came from:
+ * shares go back to that client, and a different partitioner means a different search space.
+ */
+public final class WorkSnapshot {
+    // Stratum pools start every connection at difficulty 1 until told otherwise
+    static final WorkSnapshot INITIAL = new WorkSnapshot(0, null, null, null, HashTarget.fromDifficulty(BigInteger.ONE));
+
+    private static final AtomicLong EPOCHS = new AtomicLong();
+
+    public final long epoch;
+    public final StratumClient client;
+    public final WorkPartitioner partitioner;
+    public final StratumJob job;
+    public final HashTarget target;
+
+    private WorkSnapshot(long epoch, StratumClient client, WorkPartitioner partitioner, StratumJob job, HashTarget target) {
+        this.epoch = epoch;
+        this.client = client;
+        this.partitioner = partitioner;
+        this.job = job;
+        this.target = target;
+    }
+
+    public boolean hasJob() {
+        return job != null;
+    }
+
+    WorkSnapshot withWork(StratumClient client, WorkPartitioner partitioner, StratumJob job, HashTarget target) {
+        return new WorkSnapshot(EPOCHS.incrementAndGet(), client, partitioner, job, target);
+    }
+
+    WorkSnapshot withTarget(HashTarget target) {
+        return new WorkSnapshot(EPOCHS.incrementAndGet(), client, partitioner, job, target);
+    }
+}
@@ -0,0 +1,107 @@
+package nodecore.miners.pow;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link HashTarget} against the pool's comparison, the 24 hash bytes read as a big-endian
+ * unsigned number and accepted at or below the target.
+ */
+public class HashTargetTest {
+    private static final long[] DIFFICULTIES = {
+            1, 2, 3, 16, 1000, 50000, 1000000, 123456789, 0x7FFFFFFFFFFFFFFFL
+    };
+
+    @Test
+    public void fromDifficultyDividesMaxTarget() {
+        for (long difficulty : DIFFICULTIES) {
+            BigInteger value = BigInteger.valueOf(difficulty);
+            assertEquals(HashTarget.MAX_TARGET.divide(value), HashTarget.fromDifficulty(value).getValue());
+        }
+    }
+
+    @Test
+    public void hashAtTargetIsMet() {
+        for (long difficulty : DIFFICULTIES) {
+            BigInteger target = HashTarget.fromDifficulty(BigInteger.valueOf(difficulty)).getValue();
+            assertMatchesReference(target, target);
+            assertMatchesReference(target, target.add(BigInteger.ONE));
+            assertMatchesReference(target, target.subtract(BigInteger.ONE));
+        }
+    }
+
+    /**
+     * Targets whose words have the top bit set, where a signed compare goes wrong, with hashes that
+     * differ from them in one word only.
+     */
+    @Test
+    public void wordsCompareUnsigned() {
+        BigInteger target = new BigInteger("8000000000000001" + "7FFFFFFFFFFFFFFF" + "8000000000000000", 16);
+        String[] hashes = {
+                "7FFFFFFFFFFFFFFF" + "7FFFFFFFFFFFFFFF" + "8000000000000000",
+                "8000000000000002" + "0000000000000000" + "0000000000000000",
+                "8000000000000001" + "8000000000000000" + "0000000000000000",
+                "8000000000000001" + "7FFFFFFFFFFFFFFE" + "FFFFFFFFFFFFFFFF",
+                "8000000000000001" + "7FFFFFFFFFFFFFFF" + "7FFFFFFFFFFFFFFF",
+                "8000000000000001" + "7FFFFFFFFFFFFFFF" + "8000000000000001",
+                "FFFFFFFFFFFFFFFF" + "FFFFFFFFFFFFFFFF" + "FFFFFFFFFFFFFFFF",
+                "0000000000000000" + "0000000000000000" + "0000000000000000"
+        };
+        for (String hash : hashes) {
+            assertMatchesReference(target, new BigInteger(hash, 16));
+        }
+    }
+
+    @Test
+    public void randomHashesMatchReference() {
+        Random random = new Random(2022);
+        for (int i = 0; i < 100000; i++) {
+            BigInteger target = new BigInteger(192, random);
+            BigInteger hash;
+            switch (i % 4) {
+                case 0:
+                    hash = new BigInteger(192, random);
+                    break;
+                case 1:
+                    // Same top word, so the lower words decide
+                    hash = target.shiftRight(128).shiftLeft(128).or(new BigInteger(128, random));
+                    break;
+                case 2:
+                    // Same top two words
+                    hash = target.shiftRight(64).shiftLeft(64).or(new BigInteger(64, random));
+                    break;
+                default:
+                    hash = target;
+                    break;
+            }
+            assertMatchesReference(target, hash);
+        }
+    }
+
+    private static void assertMatchesReference(BigInteger target, BigInteger hash) {
+        if (hash.signum() < 0 || hash.compareTo(HashTarget.MAX_TARGET) > 0) {
+            return;
+        }
+
+        byte[] bytes = toBytes(hash);
+        boolean expected = new BigInteger(1, bytes).compareTo(target) <= 0;
+        boolean actual = new HashTarget(target).isMetBy(
+                VBlakeHasher.readLongLE(bytes, 0), VBlakeHasher.readLongLE(bytes, 8), VBlakeHasher.readLongLE(bytes, 16));
+        assertEquals(Utility.bytesToHex(bytes) + " against " + target.toString(16), expected, actual);
+    }
+
+    /**
+     * The 24 hash bytes with the given big-endian value.
+     */
+    private static byte[] toBytes(BigInteger hash) {
+        byte[] value = hash.toByteArray();
+        byte[] bytes = new byte[VBlakeHasher.HASH_SIZE];
+        int length = Math.min(value.length, bytes.length);
+        System.arraycopy(value, value.length - length, bytes, bytes.length - length, length);
+        return bytes;
+    }
+}
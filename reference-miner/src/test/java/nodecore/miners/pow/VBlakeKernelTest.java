@@ -0,0 +1,144 @@
+package nodecore.miners.pow;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the generated {@link VBlakeKernel} and everything hashing through it against the table-driven
+ * {@link VBlake#compress(long[], byte[])}, and both against hashes from the stratum server's C vBlake.
+ */
+public class VBlakeKernelTest {
+    // Header and hash pairs from stratum-server/vblake/vblake.c
+    private static final String[][] KNOWN_ANSWERS = {
+            {
+                    "00000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000",
+                    "235FCE01D9434261188E046AE97ACA9EDC8530AE042B586C"
+            },
+            {
+                    "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF",
+                    "44B05CFD52BAC69B82ED47227E14A0BD2B2EF284F6534D49"
+            },
+            {
+                    "000102030405060708090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F202122232425262728292A2B2C2D2E2F303132333435363738393A3B3C3D3E3F",
+                    "DA369BB7776CF9E2AC4F27A6FEB1709538014757E944E062"
+            },
+            {
+                    "000F42400001E90E33587DA2C7EC11365B80A5CAEF14395E83A8CDF2173C6186ABD0F51A3F6489AED3F81D42678CB1D6FB20456A8FB45C2AAD8005F5E1006AD4",
+                    "DDF355CC9954650D4D1CAFD217239DE7D6356731725D75B0"
+            }
+    };
+
+    private static final int RANDOM_HEADERS = 10000;
+
+    @Test
+    public void referenceMatchesKnownAnswers() {
+        for (String[] answer : KNOWN_ANSWERS) {
+            assertEquals(answer[0], answer[1], Utility.bytesToHex(reference(Utility.hexToBytes(answer[0]))));
+        }
+    }
+
+    @Test
+    public void hashMatchesKnownAnswers() {
+        VBlakeHasher hasher = new VBlakeHasher();
+        for (String[] answer : KNOWN_ANSWERS) {
+            byte[] output = new byte[VBlakeHasher.HASH_SIZE];
+            hasher.hash(Utility.hexToBytes(answer[0]), 0, output, 0);
+            assertEquals(answer[0], answer[1], Utility.bytesToHex(output));
+            assertEquals(answer[0], answer[1], Utility.bytesToHex(VBlake.hash(Utility.hexToBytes(answer[0]))));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hashRejectsLongInput() {
+        VBlake.hash(new byte[VBlakeHasher.HEADER_SIZE + 1]);
+    }
+
+    @Test
+    public void hasherMatchesReference() {
+        Random random = new Random(2019);
+        VBlakeHasher hasher = new VBlakeHasher();
+        byte[] header = new byte[VBlakeHasher.HEADER_SIZE];
+        byte[] output = new byte[VBlakeHasher.HASH_SIZE];
+        for (int i = 0; i < RANDOM_HEADERS; i++) {
+            random.nextBytes(header);
+            hasher.hash(header, 0, output, 0);
+            assertArrayEquals(Utility.bytesToHex(header), reference(header), output);
+        }
+    }
+
+    @Test
+    public void kernelMatchesReference() {
+        Random random = new Random(2020);
+        long[] midstate = new long[VBlakeKernel.MIDSTATE_SIZE];
+        long[] v = new long[16];
+        long[] h = new long[3];
+        byte[] header = new byte[VBlakeHasher.HEADER_SIZE];
+        for (int i = 0; i < RANDOM_HEADERS; i++) {
+            random.nextBytes(header);
+            long[] m = words(header);
+            VBlakeKernel.compress(m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], midstate, v, h);
+            assertArrayEquals(Utility.bytesToHex(header), reference(header), VBlake.recombineB2Bh(h));
+        }
+    }
+
+    /**
+     * hashBatch must place each nonce in the high half of m[7], as it sits in bytes 60 .. 63 of the
+     * header, and report exactly the nonces whose reference hash meets the target.
+     */
+    @Test
+    public void hashBatchMatchesReference() {
+        Random random = new Random(2021);
+        HashTarget target = HashTarget.fromDifficulty(BigInteger.valueOf(16));
+        long[] midstate = new long[VBlakeKernel.MIDSTATE_SIZE];
+        long[] v = new long[16];
+        long[] h = new long[3];
+        int[] found = new int[4096];
+        byte[] header = new byte[VBlakeHasher.HEADER_SIZE];
+
+        for (int run = 0; run < 20; run++) {
+            random.nextBytes(header);
+            long[] m = words(header);
+            int firstNonce = random.nextInt();
+            int count = 500;
+            VBlakeKernel.prepare(m[0], m[1], m[2], m[3], m[4], m[5], midstate);
+            int hits = VBlake.hashBatch(midstate, m[6], m[7] & 0xFFFFFFFFL, firstNonce, count, target, found, v, h);
+
+            int expected = 0;
+            for (int i = 0; i < count; i++) {
+                int nonce = firstNonce + i;
+                header[60] = (byte) (nonce >>> 24);
+                header[61] = (byte) (nonce >>> 16);
+                header[62] = (byte) (nonce >>> 8);
+                header[63] = (byte) nonce;
+                long[] hash = words(reference(header));
+                if (target.isMetBy(hash[0], hash[1], hash[2])) {
+                    assertEquals("nonce " + nonce, i, found[expected++]);
+                }
+            }
+            assertEquals(expected, hits);
+        }
+    }
+
+    /**
+     * The table-driven vBlake: the initial state and one compression of the 64-byte header.
+     */
+    private static byte[] reference(byte[] header) {
+        long[] h = new long[8];
+        VBlake.initState(h);
+        VBlake.compress(h, header);
+        return VBlake.recombineB2Bh(h);
+    }
+
+    private static long[] words(byte[] bytes) {
+        long[] words = new long[bytes.length / 8];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = VBlakeHasher.readLongLE(bytes, i * 8);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,146 @@
+package nodecore.miners.pow.stratum;
+
+import org.junit.Test;
+
+import static nodecore.miners.pow.stratum.ShareFilter.Verdict.DUPLICATE;
+import static nodecore.miners.pow.stratum.ShareFilter.Verdict.STALE;
+import static nodecore.miners.pow.stratum.ShareFilter.Verdict.SUBMIT;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks which shares {@link ShareFilter} holds back. A wrong STALE or DUPLICATE throws away work the
+ * pool would have paid for, so every case where a share must still be sent is covered too.
+ */
+public class ShareFilterTest {
+    private static final String BLOCK_A = "00000000000000000000000A";
+    private static final String BLOCK_B = "00000000000000000000000B";
+    private static final long EXTRA_NONCE = 0x0000010000000000L;
+    private static final int TIMESTAMP = 0x5C2AAD90;
+
+    @Test
+    public void unknownJobIsStale() {
+        ShareFilter filter = new ShareFilter();
+        assertEquals(STALE, filter.check("1", EXTRA_NONCE, TIMESTAMP, 1));
+
+        filter.onJob("1", BLOCK_A);
+        assertEquals(STALE, filter.check("2", EXTRA_NONCE, TIMESTAMP, 1));
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, 1));
+    }
+
+    @Test
+    public void sameShareIsSentOnce() {
+        ShareFilter filter = new ShareFilter();
+        filter.onJob("1", BLOCK_A);
+        filter.onJob("2", BLOCK_A);
+
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, -7));
+        assertEquals(DUPLICATE, filter.check("1", EXTRA_NONCE, TIMESTAMP, -7));
+        // Any field differing makes it another share
+        assertEquals(SUBMIT, filter.check("2", EXTRA_NONCE, TIMESTAMP, -7));
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE + 1, TIMESTAMP, -7));
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP + 1, -7));
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, -8));
+    }
+
+    /**
+     * A share is remembered while its generation is the newer or the older table, and forgotten once
+     * both have turned over since.
+     */
+    @Test
+    public void duplicateIsDetectedAcrossOneRotation() {
+        ShareFilter filter = new ShareFilter();
+        filter.onJob("1", BLOCK_A);
+
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, 0));
+        int nonce = 1;
+        // Fills the first generation, which then becomes the older one
+        for (int i = 1; i < ShareFilter.GENERATION_SIZE; i++) {
+            assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, nonce++));
+        }
+        assertEquals(DUPLICATE, filter.check("1", EXTRA_NONCE, TIMESTAMP, 0));
+        assertEquals(DUPLICATE, filter.check("1", EXTRA_NONCE, TIMESTAMP, nonce - 1));
+
+        // Up to one short of filling the second generation the first is still there
+        for (int i = 1; i < ShareFilter.GENERATION_SIZE; i++) {
+            assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, nonce++));
+        }
+        assertEquals(DUPLICATE, filter.check("1", EXTRA_NONCE, TIMESTAMP, 0));
+
+        // Filling it empties the first generation
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, nonce++));
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, 0));
+        // The second generation is remembered as the older one now
+        assertEquals(DUPLICATE, filter.check("1", EXTRA_NONCE, TIMESTAMP, nonce - 1));
+    }
+
+    /**
+     * The stratum server marks every job clean but keeps all jobs on the current previous block, so
+     * only a new previous hash may invalidate them.
+     */
+    @Test
+    public void jobsOnTheSameBlockStayValid() {
+        ShareFilter filter = new ShareFilter();
+        for (int job = 1; job <= 5; job++) {
+            filter.onJob(Integer.toString(job), BLOCK_A);
+        }
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, 1));
+
+        filter.onJob("6", BLOCK_A);
+        for (int job = 1; job <= 6; job++) {
+            assertEquals("job " + job, SUBMIT, filter.check(Integer.toString(job), EXTRA_NONCE, TIMESTAMP, 2));
+        }
+        // Shares sent before the latest job are still remembered
+        assertEquals(DUPLICATE, filter.check("1", EXTRA_NONCE, TIMESTAMP, 1));
+    }
+
+    @Test
+    public void newBlockInvalidatesEveryJob() {
+        ShareFilter filter = new ShareFilter();
+        for (int job = 1; job <= ShareFilter.MAX_JOBS; job++) {
+            filter.onJob(Integer.toString(job), BLOCK_A);
+        }
+        assertEquals(SUBMIT, filter.check("3", EXTRA_NONCE, TIMESTAMP, 1));
+
+        filter.onJob("17", BLOCK_B);
+        for (int job = 1; job <= ShareFilter.MAX_JOBS; job++) {
+            assertEquals("job " + job, STALE, filter.check(Integer.toString(job), EXTRA_NONCE, TIMESTAMP, 2));
+        }
+        assertEquals(SUBMIT, filter.check("17", EXTRA_NONCE, TIMESTAMP, 1));
+
+        // A job id used again on the new block starts without the old block's shares
+        filter.onJob("3", BLOCK_B);
+        assertEquals(SUBMIT, filter.check("3", EXTRA_NONCE, TIMESTAMP, 1));
+        assertEquals(SUBMIT, filter.check("17", EXTRA_NONCE, TIMESTAMP, 2));
+    }
+
+    @Test
+    public void ringKeepsTheLatestJobs() {
+        ShareFilter filter = new ShareFilter();
+        int jobs = ShareFilter.MAX_JOBS * 2 + 3;
+        for (int job = 1; job <= jobs; job++) {
+            filter.onJob(Integer.toString(job), BLOCK_A);
+
+            int oldestKept = Math.max(1, job - ShareFilter.MAX_JOBS + 1);
+            for (int earlier = 1; earlier <= job; earlier++) {
+                ShareFilter.Verdict expected = earlier >= oldestKept ? SUBMIT : STALE;
+                assertEquals("job " + earlier + " after " + job, expected,
+                        filter.check(Integer.toString(earlier), EXTRA_NONCE, TIMESTAMP, job));
+            }
+        }
+    }
+
+    /**
+     * A job id the pool sends again is the newer job, so shares for the older one with the same id
+     * don't make the new job's shares duplicates.
+     */
+    @Test
+    public void repeatedJobIdIsANewJob() {
+        ShareFilter filter = new ShareFilter();
+        filter.onJob("1", BLOCK_A);
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, 1));
+
+        filter.onJob("1", BLOCK_A);
+        assertEquals(SUBMIT, filter.check("1", EXTRA_NONCE, TIMESTAMP, 1));
+        assertEquals(DUPLICATE, filter.check("1", EXTRA_NONCE, TIMESTAMP, 1));
+    }
+}
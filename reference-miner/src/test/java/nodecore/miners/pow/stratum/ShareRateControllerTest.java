@@ -0,0 +1,164 @@
+package nodecore.miners.pow.stratum;
+
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.VBlakeHasher;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link ShareRateController} against a stub pool that takes every suggestion, and the local
+ * minimum difficulty applied by {@link PoolConnection}.
+ */
+public class ShareRateControllerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void difficultyGivesTheShareRate() {
+        // 60 r / s
+        assertEquals(BigInteger.valueOf(3000000), ShareRateController.difficultyFor(1000000, 20));
+        assertEquals(BigInteger.valueOf(60), ShareRateController.difficultyFor(1, 1));
+        // Below 1 there is nothing lower to ask for
+        assertEquals(BigInteger.ONE, ShareRateController.difficultyFor(0.01, 60));
+    }
+
+    @Test
+    public void difficultyIsRoundedToTwoSignificantDigits() {
+        // 7,407,360 and 740,736
+        assertEquals(BigInteger.valueOf(7400000), ShareRateController.difficultyFor(1234560, 10));
+        assertEquals(BigInteger.valueOf(740000), ShareRateController.difficultyFor(123456, 10));
+        // 1,250,000 rounds half up
+        assertEquals(BigInteger.valueOf(1300000), ShareRateController.difficultyFor(125000, 6));
+        // 99,960 carries into a third digit
+        assertEquals(BigInteger.valueOf(100000), ShareRateController.difficultyFor(1666, 1));
+        assertEquals(BigInteger.valueOf(15), ShareRateController.difficultyFor(0.25, 1));
+    }
+
+    @Test
+    public void updateMeasuresTheHashRate() {
+        ShareRateController controller = new ShareRateController(20);
+        controller.reset(0, 0);
+        assertEquals(BigInteger.valueOf(3000000), controller.update(30000000, 30 * SECOND, BigInteger.ONE));
+        assertEquals(1000000, controller.getHashRate(), 0);
+
+        // Half of each new measurement goes into the average: 1 MH/s then 2 MH/s averages 1.5 MH/s
+        assertEquals(BigInteger.valueOf(4500000), controller.update(90000000, 60 * SECOND, BigInteger.ONE));
+        assertEquals(1500000, controller.getHashRate(), 0);
+    }
+
+    @Test
+    public void difficultyWithinToleranceIsKept() {
+        // 1 MH/s at 20 shares a minute wants 3,000,000
+        BigInteger[] kept = { big(3000000), big(2500000), big(3900000), big(2400001) };
+        for (BigInteger difficulty : kept) {
+            assertNull(difficulty.toString(), measureOneMegahash(difficulty));
+        }
+
+        BigInteger[] changed = { big(1), big(2300000), big(4100000), big(10000000) };
+        for (BigInteger difficulty : changed) {
+            assertEquals(difficulty.toString(), big(3000000), measureOneMegahash(difficulty));
+        }
+    }
+
+    @Test
+    public void idleConnectionIsNotRetargeted() {
+        ShareRateController controller = new ShareRateController(20);
+        controller.reset(0, 0);
+        assertNull(controller.update(0, 30 * SECOND, BigInteger.ONE));
+        assertTrue(Double.isNaN(controller.getHashRate()));
+
+        assertEquals(big(3000000), controller.update(30000000, 60 * SECOND, BigInteger.ONE));
+        // No hashes since, so the last rate stands and nothing is suggested
+        assertNull(controller.update(30000000, 90 * SECOND, BigInteger.ONE));
+        assertEquals(1000000, controller.getHashRate(), 0);
+    }
+
+    /**
+     * A new session starts measuring from scratch, from its own hash count, rather than averaging in
+     * the last session's rate or counting its hashes.
+     */
+    @Test
+    public void resetStartsANewMeasurement() {
+        ShareRateController controller = new ShareRateController(20);
+        controller.reset(0, 0);
+        controller.update(300000000, 30 * SECOND, BigInteger.ONE);
+        assertEquals(10000000, controller.getHashRate(), 0);
+
+        controller.reset(500, 100 * SECOND);
+        assertTrue(Double.isNaN(controller.getHashRate()));
+        assertEquals(big(3000000), controller.update(500 + 30000000, 130 * SECOND, BigInteger.ONE));
+        assertEquals(1000000, controller.getHashRate(), 0);
+    }
+
+    /**
+     * A pool taking every suggestion settles at the difficulty for the share rate, after which the
+     * controller stops asking.
+     */
+    @Test
+    public void stubPoolSettles() {
+        ShareRateController controller = new ShareRateController(12);
+        BigInteger poolDifficulty = BigInteger.ONE;
+        long hashes = 0;
+        long now = 0;
+        controller.reset(hashes, now);
+
+        int suggestions = 0;
+        for (int round = 0; round < 20; round++) {
+            // 2 MH/s, with the odd slow interval
+            long rate = round % 5 == 4 ? 1800000 : 2000000;
+            hashes += rate * 30;
+            now += 30 * SECOND;
+            BigInteger suggested = controller.update(hashes, now, poolDifficulty);
+            if (suggested != null) {
+                poolDifficulty = suggested;
+                suggestions++;
+            }
+        }
+
+        assertEquals(1, suggestions);
+        assertEquals(big(10000000), poolDifficulty);
+    }
+
+    @Test
+    public void sharesBelowTheMinimumAreHeldBack() {
+        BigInteger minimum = big(50000);
+        HashTarget target = PoolConnection.shareTarget(big(1000), minimum);
+        assertEquals(HashTarget.fromDifficulty(minimum).getValue(), target.getValue());
+
+        BigInteger atMinimum = HashTarget.fromDifficulty(minimum).getValue();
+        assertTrue(isMetBy(target, atMinimum));
+        // Good enough for the pool, but not for the minimum
+        BigInteger aboveMinimum = atMinimum.add(BigInteger.ONE);
+        assertTrue(isMetBy(HashTarget.fromDifficulty(big(1000)), aboveMinimum));
+        assertFalse(isMetBy(target, aboveMinimum));
+
+        // A pool difficulty above the minimum is kept
+        assertEquals(HashTarget.fromDifficulty(big(80000)).getValue(),
+                PoolConnection.shareTarget(big(80000), minimum).getValue());
+    }
+
+    private static BigInteger measureOneMegahash(BigInteger difficulty) {
+        ShareRateController controller = new ShareRateController(20);
+        controller.reset(0, 0);
+        return controller.update(30000000, 30 * SECOND, difficulty);
+    }
+
+    private static boolean isMetBy(HashTarget target, BigInteger hash) {
+        byte[] value = hash.toByteArray();
+        byte[] bytes = new byte[VBlakeHasher.HASH_SIZE];
+        int length = Math.min(value.length, bytes.length);
+        System.arraycopy(value, value.length - length, bytes, bytes.length - length, length);
+        return target.isMetBy(VBlakeHasher.readLongLE(bytes, 0), VBlakeHasher.readLongLE(bytes, 8),
+                VBlakeHasher.readLongLE(bytes, 16));
+    }
+
+    private static BigInteger big(long value) {
+        return BigInteger.valueOf(value);
+    }
+}
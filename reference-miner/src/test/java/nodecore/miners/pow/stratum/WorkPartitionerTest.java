@@ -0,0 +1,135 @@
+package nodecore.miners.pow.stratum;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link WorkPartitioner} never hands out overlapping ranges and never leaves the
+ * extra-nonces the pool assigned.
+ */
+public class WorkPartitionerTest {
+    private static final long BASE = 0x0400000000001000L;
+    private static final long NONCE_SPACE = 1L << 32;
+
+    @Test
+    public void counterRangesAreDisjointUntilTheSpaceIsUsed() {
+        // One extra-nonce byte: 256 extra-nonces, sliced once there are more workers than that
+        for (int workers : new int[] { 1, 2, 3, 7, 64, 255, 256, 257, 1000 }) {
+            WorkPartitioner partitioner = new WorkPartitioner(BASE, 1, workers);
+            long ranges = 256L * partitioner.getSlicesPerExtraNonce();
+            assertTrue(ranges >= workers);
+
+            Set<String> seen = new HashSet<>();
+            for (int worker = 0; worker < workers; worker++) {
+                WorkRange range = partitioner.first(worker);
+                assertRangeWithin(range, BASE, 256, partitioner);
+                assertTrue("workers " + workers + ": " + range, seen.add(key(range)));
+            }
+            for (long i = workers; i < ranges; i++) {
+                WorkRange range = partitioner.next();
+                assertRangeWithin(range, BASE, 256, partitioner);
+                assertTrue("workers " + workers + ": " + range, seen.add(key(range)));
+            }
+            // Only once the whole space is used does the counter start over
+            assertFalse(seen.add(key(partitioner.next())));
+        }
+    }
+
+    @Test
+    public void afterTakesTheNextUnusedRangeWithoutRolling() {
+        WorkPartitioner partitioner = new WorkPartitioner(BASE, 1, 4);
+        Set<String> seen = new HashSet<>();
+        WorkRange range = partitioner.first(0);
+        for (int i = 0; i < 256; i++) {
+            assertTrue(range.toString(), seen.add(key(range)));
+            range = partitioner.after(range);
+        }
+        // The whole space has been handed out once, so the counter starts over
+        assertFalse(seen.add(key(range)));
+    }
+
+    @Test
+    public void rollingStridesAreDisjoint() {
+        for (int workers : new int[] { 1, 2, 3, 5, 7, 16, 100, 255, 256 }) {
+            assertRollingDisjoint(new WorkPartitioner(BASE, 1, workers, true), workers, 256);
+        }
+    }
+
+    /**
+     * At the full 8-byte width the extra-nonces stay below the next session's, which the VeriBlock
+     * stratum server starts {@link WorkPartitioner#FULL_WIDTH_EXTRA_NONCES} higher, including where a
+     * stride wraps and the count is not a multiple of the worker count.
+     */
+    @Test
+    public void fullWidthStaysWithinTheSession() {
+        for (int workers : new int[] { 1, 3, 7, 64 }) {
+            WorkPartitioner partitioner = new WorkPartitioner(BASE, 8, workers, true);
+            assertTrue(partitioner.isRolling());
+            assertRollingDisjoint(partitioner, workers, WorkPartitioner.FULL_WIDTH_EXTRA_NONCES);
+        }
+
+        WorkPartitioner shared = new WorkPartitioner(BASE, 8, 4);
+        for (long i = 0; i < WorkPartitioner.FULL_WIDTH_EXTRA_NONCES; i++) {
+            assertEquals(BASE + i, shared.next().extraNonce);
+        }
+        assertEquals(BASE, shared.next().extraNonce);
+    }
+
+    @Test
+    public void rollingNeedsAnExtraNoncePerWorker() {
+        WorkPartitioner partitioner = new WorkPartitioner(BASE, 1, 257, true);
+        assertFalse(partitioner.isRolling());
+        assertEquals(2, partitioner.getSlicesPerExtraNonce());
+    }
+
+    /**
+     * Walks every worker's stride past its wrap and checks that the strides cover the extra-nonces
+     * exactly once between them.
+     */
+    private static void assertRollingDisjoint(WorkPartitioner partitioner, int workers, long extraNonceCount) {
+        Map<Long, Integer> owners = new HashMap<>();
+        for (int worker = 0; worker < workers; worker++) {
+            WorkRange first = partitioner.first(worker);
+            WorkRange range = first;
+            long steps = extraNonceCount / workers + 2;
+            for (long step = 0; step < steps; step++) {
+                assertRangeWithin(range, BASE, extraNonceCount, partitioner);
+                Integer owner = owners.putIfAbsent(range.extraNonce, worker);
+                if (owner != null && owner != worker) {
+                    fail("workers " + workers + ": " + range + " held by " + owner + " and " + worker);
+                }
+                range = partitioner.after(range);
+            }
+            // Past the end of the space the worker is back at the start of its own stride
+            assertEquals(0, (range.extraNonce - first.extraNonce) % workers);
+        }
+        assertEquals(extraNonceCount, owners.size());
+    }
+
+    /**
+     * Checks that the range is one whole slice of an extra-nonce within the given ones.
+     */
+    private static void assertRangeWithin(WorkRange range, long base, long extraNonceCount, WorkPartitioner partitioner) {
+        long sliceSize = NONCE_SPACE / partitioner.getSlicesPerExtraNonce();
+        if (range.extraNonce < base || range.extraNonce >= base + extraNonceCount
+                || range.size() != sliceSize
+                || range.firstNonce < Integer.MIN_VALUE
+                || range.endNonce > Integer.MIN_VALUE + NONCE_SPACE
+                || (range.firstNonce - Integer.MIN_VALUE) % sliceSize != 0) {
+            fail("Not a slice of the " + extraNonceCount + " extra-nonces from " + base + ": " + range);
+        }
+    }
+
+    private static String key(WorkRange range) {
+        return range.extraNonce + "/" + range.firstNonce;
+    }
+}
@@ -0,0 +1,220 @@
+#!/usr/bin/env python3
+# VeriBlock Integration
+# Copyright 2019-2021 Xenios SEZC
+# All rights reserved.
+# https://www.veriblock.org
+# Distributed under the MIT software license, see the accompanying
+# file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+"""Generates the unrolled vBlake compression kernel (VBlakeKernel.java).
+
+The sigma schedule and the message/constant pairing are resolved here, so the
+generated kernel is straight-line code over 16 local state words.
+
+Usage: python3 tools/gen_vblake_kernel.py > src/main/java/nodecore/miners/pow/VBlakeKernel.java
+"""
+
+SIGMA = [
+    [0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15],
+    [14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3],
+    [11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4],
+    [7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8],
+    [9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13],
+    [2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9],
+    [12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11],
+    [13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10],
+    [6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5],
+    [10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0],
+]
+SIGMA = SIGMA + SIGMA[:6]
+
+IV = [
+    0x4BBF42C1F006AD9D, 0x5D11A8C3B5AEB12E,
+    0xA64AB78DC2774652, 0xC67595724658F253,
+    0xB8864E79CB891E56, 0x12ED593E29FB41A1,
+    0xB1DA3AB63C60BAA8, 0x6D20E50C1F954DED,
+]
+
+C = [
+    0xA51B6A89D489E800, 0xD35B2E0E0B723800,
+    0xA47B39A2AE9F9000, 0x0C0EFA33E77E6488,
+    0x4F452FEC309911EB, 0x3CFCC66F74E1022C,
+    0x4606AD364DC879DD, 0xBBA055B53D47C800,
+    0x531655D90C59EB1B, 0xD1A00BA6DAE5B800,
+    0x2FE452DA9632463E, 0x98A7B5496226F800,
+    0xBAFCD004F92CA000, 0x64A39957839525E7,
+    0xD859E6F081AAE000, 0x63D980597B560E6B,
+]
+
+COLUMNS = [
+    (0, 4, 8, 12), (1, 5, 9, 13), (2, 6, 10, 14), (3, 7, 11, 15),
+    (0, 5, 10, 15), (1, 6, 11, 12), (2, 7, 8, 13), (3, 4, 9, 14),
+]
+
+MASK = (1 << 64) - 1
+
+# HotSpot will not JIT a method over 8000 bytes of bytecode (all 16 rounds come to ~11.7k), so the
+# rounds are emitted as separate methods that hand the state across through a scratch array.
+PARTS = 4
+ROUNDS_PER_PART = 16 // PARTS
+
+# The first three G calls of round 0 only read m[0 .. 5], which stay fixed for a job and extra-nonce,
+# so they are hoisted into prepare(). Message words 6 and 7 are first used by the fourth G.
+PREPARED_GS = 3
+PREPARED_WORDS = 6
+
+
+def lit(x):
+    return "0x%016XL" % (x & MASK)
+
+
+def term(k):
+    # Message words 8 .. 15 are always zero, so their term is the bare constant
+    return "x%d" % k if k < 8 else "C%d" % k
+
+
+def g(out, a, b, c, d, x, y):
+    out.append("        v%d = v%d + v%d + %s;" % (a, a, b, x))
+    out.append("        v%d = Long.rotateRight(v%d ^ v%d, 60);" % (d, d, a))
+    out.append("        v%d = v%d + v%d;" % (c, c, d))
+    out.append("        v%d = Long.rotateRight(v%d ^ v%d, 43);" % (b, b, c))
+    out.append("        v%d = v%d + v%d + %s;" % (a, a, b, y))
+    out.append("        v%d = Long.rotateRight(v%d ^ v%d, 5);" % (d, d, a))
+    out.append("        v%d = v%d + v%d;" % (c, c, d))
+    out.append("        v%d = Long.rotateRight(v%d ^ v%d, 18);" % (b, b, c))
+    out.append("        v%d = ~v%d;" % (d, d))
+
+
+def part_name(p):
+    return "%dTo%d" % (p * ROUNDS_PER_PART, (p + 1) * ROUNDS_PER_PART - 1)
+
+
+def rounds(out, first, last, skip=0):
+    """Emits rounds [first, last), leaving out the first `skip` G calls of the first round."""
+    for r in range(first, last):
+        out.append("")
+        out.append("        // Round %d" % r)
+        for j, (a, b, c, d) in enumerate(COLUMNS):
+            if r == first and j < skip:
+                continue
+            g(out, a, b, c, d, term(SIGMA[r][2 * j + 1]), term(SIGMA[r][2 * j]))
+
+
+def main():
+    h = list(IV)
+    h[0] ^= 0x01010000 ^ 0x18
+
+    v = h + list(IV)
+    v[12] ^= 64
+    v[14] ^= MASK
+
+    out = []
+    out.append("""// VeriBlock Integration
+// Copyright 2019-2021 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package nodecore.miners.pow;
+
+// GENERATED by tools/gen_vblake_kernel.py - do not edit by hand.
+
+/**
+ * Fully unrolled single-block vBlake compression.
+ *
+ * The 16 state words are locals and every sigma lookup has been resolved by the generator. The
+ * rounds are split across four methods to stay under HotSpot's huge-method limit. Each G ends in
+ * the boolean equivalent of the two LUT post-mix steps in {@link VBlake#B2B_G}: XORing d with
+ * ~(a ^ b ^ c) and then with (a ^ b ^ c) is a plain complement of d.
+ */
+public final class VBlakeKernel {""")
+    out.append("    public static final int MIDSTATE_SIZE = %d;" % (16 + PREPARED_WORDS))
+    out.append("")
+    for i in range(16):
+        out.append("    private static final long C%d = %s;" % (i, lit(C[i])))
+    out.append("")
+    for i in range(16):
+        out.append("    private static final long V%d = %s;" % (i, lit(v[i])))
+    out.append("")
+    out.append("    // Chaining value terms folded into the final h[0 .. 2]")
+    out.append("    private static final long H0 = %s;" % lit(h[0] ^ h[3] ^ h[6]))
+    out.append("    private static final long H1 = %s;" % lit(h[1] ^ h[4] ^ h[7]))
+    out.append("    private static final long H2 = %s;" % lit(h[2] ^ h[5]))
+    out.append("")
+    out.append("    private VBlakeKernel() { }")
+    out.append("""
+    /**
+     * Hashes the message words m[0 .. 7] of a 64-byte header (little-endian, as read by
+     * {@link VBlake#compress(long[], byte[])}) and stores the resulting h[0 .. 2] in {@code h}.
+     * {@code midstate} and {@code v} are caller-owned scratch space of {@link #MIDSTATE_SIZE} and 16
+     * words respectively.
+     */
+    public static void compress(long m0, long m1, long m2, long m3, long m4, long m5, long m6, long m7,
+                                long[] midstate, long[] v, long[] h) {
+        prepare(m0, m1, m2, m3, m4, m5, midstate);
+        compress(midstate, m6, m7, v, h);
+    }
+
+    /**
+     * Computes the part of the compression that depends only on m[0 .. 5] into {@code midstate},
+     * which must hold {@link #MIDSTATE_SIZE} words. Words 0 .. 15 are the working state after the
+     * first three G calls of round 0 and words 16 .. 21 the message words XORed with their constants.
+     */
+    public static void prepare(long m0, long m1, long m2, long m3, long m4, long m5, long[] midstate) {""")
+    for k in range(PREPARED_WORDS):
+        out.append("        final long x%d = m%d ^ C%d;" % (k, k, k))
+    out.append("")
+    for i in range(16):
+        out.append("        long v%d = V%d;" % (i, i))
+    out.append("")
+    out.append("        // Round 0, columns 0 .. 2")
+    for j in range(PREPARED_GS):
+        a, b, c, d = COLUMNS[j]
+        g(out, a, b, c, d, term(SIGMA[0][2 * j + 1]), term(SIGMA[0][2 * j]))
+    out.append("")
+    for i in range(16):
+        out.append("        midstate[%d] = v%d;" % (i, i))
+    for k in range(PREPARED_WORDS):
+        out.append("        midstate[%d] = x%d;" % (16 + k, k))
+    out.append("    }")
+
+    out.append("""
+    /**
+     * Finishes a hash from a {@link #prepare prepared} midstate and the remaining message words
+     * m[6] and m[7], storing h[0 .. 2] in {@code h}. {@code v} is caller-owned scratch space of 16
+     * words; {@code midstate} is only read.
+     */
+    public static void compress(long[] midstate, long m6, long m7, long[] v, long[] h) {""")
+    for k in range(PREPARED_WORDS):
+        out.append("        final long x%d = midstate[%d];" % (k, 16 + k))
+    out.append("        final long x6 = m6 ^ C6;")
+    out.append("        final long x7 = m7 ^ C7;")
+    out.append("")
+    for p in range(PARTS):
+        out.append("        rounds%s(%s, x0, x1, x2, x3, x4, x5, x6, x7, v%s);"
+                   % (part_name(p), "midstate" if p == 0 else "v", ", h" if p == PARTS - 1 else ""))
+    out.append("    }")
+
+    for p in range(PARTS):
+        last = p == PARTS - 1
+        out.append("")
+        out.append("    private static void rounds%s(long[] in, long x0, long x1, long x2, long x3, long x4, long x5,"
+                   % part_name(p))
+        out.append("            long x6, long x7, long[] v%s) {" % (", long[] h" if last else ""))
+        for i in range(16):
+            out.append("        long v%d = in[%d];" % (i, i))
+        rounds(out, p * ROUNDS_PER_PART, (p + 1) * ROUNDS_PER_PART, PREPARED_GS if p == 0 else 0)
+        out.append("")
+        if last:
+            out.append("        h[0] = H0 ^ v0 ^ v8 ^ v3 ^ v11 ^ v6 ^ v14;")
+            out.append("        h[1] = H1 ^ v1 ^ v9 ^ v4 ^ v12 ^ v7 ^ v15;")
+            out.append("        h[2] = H2 ^ v2 ^ v10 ^ v5 ^ v13;")
+        else:
+            for i in range(16):
+                out.append("        v[%d] = v%d;" % (i, i))
+        out.append("    }")
+    out.append("}")
+    print("\n".join(out))
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,199 @@
+package nodecore.miners.pow.verifier;
+
+import nodecore.miners.pow.HashTarget;
+import nodecore.miners.pow.VBlakeHasher;
+import nodecore.miners.pow.stratum.MerkleRootCalculator;
+import nodecore.miners.pow.stratum.PreparedHeader;
+import nodecore.miners.pow.stratum.StratumJob;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies shares against registered job templates, in parallel batches on a fork-join pool.
+ *
+ * Each share goes through the checks of the stratum server's template registry, in the same order:
+ * the job must be known, the timestamp no older than the job and at most {@link #MAX_FUTURE_SECONDS}
+ * ahead of the clock, the share not submitted before, and the vBlake hash of the rebuilt header below
+ * the share target. A hash also below the job's network target is a block candidate. Headers are
+ * rebuilt as {@link StratumJob#constructPrototype} does, but into per-task buffers, so verifying
+ * allocates nothing per share. Safe to use from any number of threads.
+ */
+public class ShareVerifier {
+    public static final int MAX_FUTURE_SECONDS = 1000;
+    // Older jobs are dropped once this many are registered
+    public static final int MAX_JOBS = 64;
+    // Shares verified one after another by a single fork-join task
+    static final int LEAF_SIZE = 32;
+    private static final int MAX_CACHED_TARGETS = 1024;
+
+    private final ForkJoinPool pool;
+    private final Map<BigInteger, HashTarget> targets = new ConcurrentHashMap<>();
+    private final LongAdder[] counts = new LongAdder[Verdict.values().length];
+
+    // Read by the verifying threads; added and removed under this, with their order in jobOrder
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Deque<String> jobOrder = new ArrayDeque<>();
+
+    public ShareVerifier(ForkJoinPool pool) {
+        this.pool = pool;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registers a job. A clean job replaces every earlier one, whose shares become stale.
+     */
+    public synchronized void addJob(StratumJob job, BigInteger networkTarget, boolean cleanJobs) {
+        if (cleanJobs) {
+            jobs.clear();
+            jobOrder.clear();
+        }
+        // The pool takes a block only strictly below the network target
+        HashTarget blockTarget = new HashTarget(networkTarget.subtract(BigInteger.ONE).max(BigInteger.ZERO));
+        if (jobs.put(job.jobId, new Job(job, blockTarget)) == null) {
+            jobOrder.addLast(job.jobId);
+        }
+
+        while (jobOrder.size() > MAX_JOBS) {
+            jobs.remove(jobOrder.removeFirst());
+        }
+    }
+
+    public synchronized boolean removeJob(String jobId) {
+        jobOrder.remove(jobId);
+        return jobs.remove(jobId) != null;
+    }
+
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    /**
+     * The number of shares given each verdict so far.
+     */
+    public long getCount(Verdict verdict) {
+        return counts[verdict.ordinal()].sum();
+    }
+
+    /**
+     * Verifies every submission in {@code batch}, setting its verdict and hash. Shares in one batch are
+     * checked against each other for duplicates as well as against earlier batches.
+     */
+    public void verify(List<Submission> batch) {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        VerifyTask task = new VerifyTask(batch, 0, batch.size(), now);
+        if (batch.size() <= LEAF_SIZE) {
+            // Not worth a hand-off to the pool
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    private HashTarget targetFor(BigInteger difficulty) {
+        HashTarget target = targets.get(difficulty);
+        if (target == null) {
+            if (targets.size() >= MAX_CACHED_TARGETS) {
+                targets.clear();
+            }
+            target = HashTarget.fromDifficulty(difficulty);
+            targets.put(difficulty, target);
+        }
+        return target;
+    }
+
+    private Verdict check(Submission share, long now, Verifier verifier) {
+        Job job = jobs.get(share.jobId);
+        if (job == null) {
+            return Verdict.STALE;
+        }
+
+        long timestamp = share.timestamp & 0xFFFFFFFFL;
+        if (timestamp < (job.job.time & 0xFFFFFFFFL) || timestamp > now + MAX_FUTURE_SECONDS) {
+            return Verdict.NTIME_OUT_OF_RANGE;
+        }
+
+        if (!job.submissions.add(share.extraNonce, share.timestamp, share.nonce)) {
+            return Verdict.DUPLICATE;
+        }
+
+        verifier.hash(job.job, share);
+        long h0 = VBlakeHasher.readLongLE(share.hash, 0);
+        long h1 = VBlakeHasher.readLongLE(share.hash, 8);
+        long h2 = VBlakeHasher.readLongLE(share.hash, 16);
+        if (!targetFor(share.difficulty).isMetBy(h0, h1, h2)) {
+            return Verdict.ABOVE_TARGET;
+        }
+        return job.networkTarget.isMetBy(h0, h1, h2) ? Verdict.BLOCK : Verdict.VALID;
+    }
+
+    private static final class Job {
+        private final StratumJob job;
+        private final HashTarget networkTarget;
+        private final SubmissionSet submissions = new SubmissionSet();
+
+        private Job(StratumJob job, HashTarget networkTarget) {
+            this.job = job;
+            this.networkTarget = networkTarget;
+        }
+    }
+
+    /**
+     * Scratch state for rebuilding and hashing headers on one thread.
+     */
+    private static final class Verifier {
+        private final MerkleRootCalculator calculator = new MerkleRootCalculator();
+        private final VBlakeHasher hasher = new VBlakeHasher();
+        private final byte[] header = new byte[StratumJob.HEADER_SIZE];
+        private final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+
+        private void hash(StratumJob job, Submission share) {
+            job.writeHeader(share.timestamp, share.extraNonce, calculator, header);
+            headerBuffer.putInt(PreparedHeader.NONCE_OFFSET, share.nonce);
+            hasher.hash(header, 0, share.hash, 0);
+        }
+    }
+
+    private final class VerifyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Submission> batch;
+        private final int from;
+        private final int to;
+        private final long now;
+
+        private VerifyTask(List<Submission> batch, int from, int to, long now) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.now = now;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new VerifyTask(batch, from, middle, now), new VerifyTask(batch, middle, to, now));
+                return;
+            }
+
+            Verifier verifier = new Verifier();
+            for (int i = from; i < to; i++) {
+                Submission share = batch.get(i);
+                share.verdict = check(share, now, verifier);
+                counts[share.verdict.ordinal()].increment();
+            }
+        }
+    }
+}
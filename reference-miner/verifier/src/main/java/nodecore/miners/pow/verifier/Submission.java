@@ -0,0 +1,39 @@
+package nodecore.miners.pow.verifier;
+
+import nodecore.miners.pow.VBlakeHasher;
+
+import java.math.BigInteger;
+
+/**
+ * A share to verify, and once {@link ShareVerifier#verify} returns, its verdict and hash.
+ */
+public final class Submission {
+    public final String jobId;
+    public final long extraNonce;
+    public final int timestamp;
+    public final int nonce;
+    public final BigInteger difficulty;
+
+    // Filled in by the verifier; the hash only if the header was hashed
+    public Verdict verdict;
+    public final byte[] hash = new byte[VBlakeHasher.HASH_SIZE];
+
+    public Submission(String jobId, long extraNonce, int timestamp, int nonce, BigInteger difficulty) {
+        if (difficulty.signum() <= 0) {
+            throw new IllegalArgumentException("A share difficulty must be positive (called with " + difficulty + ")!");
+        }
+
+        this.jobId = jobId;
+        this.extraNonce = extraNonce;
+        this.timestamp = timestamp;
+        this.nonce = nonce;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Whether the header was hashed, so {@link #hash} is set.
+     */
+    public boolean isHashed() {
+        return verdict == Verdict.ABOVE_TARGET || verdict == Verdict.VALID || verdict == Verdict.BLOCK;
+    }
+}
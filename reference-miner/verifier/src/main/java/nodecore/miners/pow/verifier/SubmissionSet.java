@@ -0,0 +1,94 @@
+package nodecore.miners.pow.verifier;
+
+/**
+ * The (extra-nonce, timestamp, nonce) triples already submitted for one job.
+ *
+ * Entries are kept in open-addressed arrays of primitives, two longs each, so a set costs about 17
+ * bytes per share and no objects per entry. The set is split into independently locked stripes by
+ * hash, so verifier threads adding shares for the same job rarely wait on each other.
+ */
+final class SubmissionSet {
+    private static final int STRIPE_BITS = 4;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    SubmissionSet() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Records a submission, returning false if it had already been recorded.
+     */
+    boolean add(long extraNonce, int timestamp, int nonce) {
+        long rest = ((long) timestamp << 32) | (nonce & 0xFFFFFFFFL);
+        long hash = mix(extraNonce * 0x9E3779B97F4A7C15L ^ rest);
+        Stripe stripe = stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+        synchronized (stripe) {
+            return stripe.add(extraNonce, rest, (int) hash);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    // The MurmurHash3 finalizer, so every bit of the key affects the stripe and slot
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Stripe {
+        // Slot i holds keys[2i] (extra-nonce) and keys[2i + 1] (timestamp and nonce) if used[i]
+        private long[] keys = new long[2 * INITIAL_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_CAPACITY];
+        private int size;
+
+        private boolean add(long first, long second, int hash) {
+            int mask = used.length - 1;
+            int slot = hash & mask;
+            while (used[slot]) {
+                if (keys[2 * slot] == first && keys[2 * slot + 1] == second) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            used[slot] = true;
+            keys[2 * slot] = first;
+            keys[2 * slot + 1] = second;
+            if (++size > used.length * 3 / 4) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            used = new boolean[oldUsed.length * 2];
+            size = 0;
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (oldUsed[i]) {
+                    long first = oldKeys[2 * i];
+                    long second = oldKeys[2 * i + 1];
+                    add(first, second, (int) mix(first * 0x9E3779B97F4A7C15L ^ second));
+                }
+            }
+        }
+    }
+}
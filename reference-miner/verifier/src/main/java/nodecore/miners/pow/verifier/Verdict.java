@@ -0,0 +1,19 @@
+package nodecore.miners.pow.verifier;
+
+/**
+ * The result of verifying one share, in the order the checks are made.
+ */
+public enum Verdict {
+    /** The job is unknown or has been superseded */
+    STALE,
+    /** The timestamp is older than the job or too far ahead of the clock */
+    NTIME_OUT_OF_RANGE,
+    /** The same extra-nonce, timestamp and nonce were already submitted for the job */
+    DUPLICATE,
+    /** The hash doesn't meet the share target */
+    ABOVE_TARGET,
+    /** The hash meets the share target */
+    VALID,
+    /** The hash also meets the network target, so the share is a block candidate */
+    BLOCK
+}
@@ -0,0 +1,236 @@
+package nodecore.miners.pow.verifier;
+
+import nodecore.miners.pow.Utility;
+import nodecore.miners.pow.stratum.StratumJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Serves a {@link ShareVerifier} on a local socket, so a pool server can hand share validation off to
+ * it. The protocol is line-delimited text with space-separated fields, numbers in hex unless noted:
+ *
+ * <pre>
+ * JOB id height version previous-hash previous-keystone second-previous-keystone
+ *     merkle-1 merkle-2 merkle-3 time block-difficulty network-target clean(0|1)   -> OK
+ * DROP id                                                                      -> OK
+ * SUBMIT tag job-id extra-nonce timestamp nonce share-difficulty(decimal)      -> tag VERDICT [hash]
+ * STATS                                                                        -> STATS VERDICT=count ...
+ * </pre>
+ *
+ * SUBMIT lines may be pipelined. They are collected until the client pauses or {@link #MAX_BATCH} are
+ * waiting, verified as one parallel batch and answered in order; the tag is any token the client uses
+ * to match answers to submissions. The verdict is one of {@link Verdict}, followed by the hash for
+ * shares that were hashed. A line that can't be handled is answered with ERROR and a reason, after the
+ * tag for a SUBMIT that got that far; a malformed SUBMIT is answered in its place among the batch.
+ *
+ * Listens on the loopback interface only; each connection is served by its own thread.
+ */
+public class VerifierServer {
+    private static final Logger logger = LoggerFactory.getLogger(VerifierServer.class);
+
+    public static final int DEFAULT_PORT = 18600;
+    public static final int MAX_BATCH = 4096;
+
+    private final ShareVerifier verifier;
+    private final ServerSocket server;
+    private volatile boolean running = false;
+
+    public VerifierServer(ShareVerifier verifier, int port) throws IOException {
+        this.verifier = verifier;
+        this.server = new ServerSocket();
+        this.server.setReuseAddress(true);
+        this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::accept, "verifier-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.debug("Error closing the verifier socket", e);
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Thread thread = new Thread(() -> serve(socket), "verifier-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Stopped accepting verifier connections", e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        logger.info("Verifier client connected from {}", socket.getRemoteSocketAddress());
+        try (Socket connection = socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII));
+            List<Submission> batch = new ArrayList<>();
+            // Every SUBMIT since the last answers, in order: a tag to answer with the next share of the
+            // batch, or null where the answer is the matching entry of errors
+            List<String> tags = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.trim().split(" +");
+                String command = fields[0];
+
+                if (command.equals("SUBMIT")) {
+                    String error = null;
+                    if (fields.length != 7) {
+                        error = (fields.length > 1 ? fields[1] + " " : "") + "ERROR SUBMIT takes 6 fields";
+                    } else {
+                        try {
+                            batch.add(new Submission(fields[2], Long.parseUnsignedLong(fields[3], 16),
+                                    Integer.parseUnsignedInt(fields[4], 16), Integer.parseUnsignedInt(fields[5], 16),
+                                    new BigInteger(fields[6])));
+                        } catch (IllegalArgumentException e) {
+                            error = fields[1] + " ERROR " + e.getMessage();
+                        }
+                    }
+                    tags.add(error == null ? fields[1] : null);
+                    errors.add(error);
+
+                    // Keep collecting while more submissions are already waiting
+                    if (tags.size() < MAX_BATCH && in.ready()) {
+                        continue;
+                    }
+                    verify(batch, tags, errors, out);
+                } else if (command.isEmpty()) {
+                    verify(batch, tags, errors, out);
+                } else {
+                    // Anything else applies after the submissions before it
+                    verify(batch, tags, errors, out);
+                    out.write(handle(command, fields));
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.debug("Verifier connection closed", e);
+        }
+        logger.info("Verifier client disconnected");
+    }
+
+    private void verify(List<Submission> batch, List<String> tags, List<String> errors, Writer out) throws IOException {
+        if (tags.isEmpty()) {
+            return;
+        }
+
+        if (!batch.isEmpty()) {
+            verifier.verify(batch);
+        }
+        StringBuilder answers = new StringBuilder(tags.size() * 64);
+        int next = 0;
+        for (int i = 0; i < tags.size(); i++) {
+            if (tags.get(i) == null) {
+                answers.append(errors.get(i)).append('\n');
+                continue;
+            }
+
+            Submission share = batch.get(next++);
+            answers.append(tags.get(i)).append(' ').append(share.verdict);
+            if (share.isHashed()) {
+                answers.append(' ').append(Utility.bytesToHex(share.hash));
+            }
+            answers.append('\n');
+        }
+        out.write(answers.toString());
+
+        batch.clear();
+        tags.clear();
+        errors.clear();
+    }
+
+    private String handle(String command, String[] fields) {
+        try {
+            switch (command) {
+                case "JOB":
+                    if (fields.length != 14) {
+                        return "ERROR JOB takes 13 fields";
+                    }
+                    StratumJob job = new StratumJob(fields[1], Integer.parseUnsignedInt(fields[2], 16),
+                            (short) Integer.parseInt(fields[3], 16), fields[4], fields[5], fields[6],
+                            new String[] { fields[7], fields[8], fields[9] },
+                            Integer.parseUnsignedInt(fields[10], 16), Integer.parseUnsignedInt(fields[11], 16));
+                    verifier.addJob(job, new BigInteger(fields[12], 16), fields[13].equals("1"));
+                    return "OK";
+                case "DROP":
+                    if (fields.length != 2) {
+                        return "ERROR DROP takes 1 field";
+                    }
+                    verifier.removeJob(fields[1]);
+                    return "OK";
+                case "STATS":
+                    StringBuilder stats = new StringBuilder("STATS");
+                    for (Verdict verdict : Verdict.values()) {
+                        stats.append(' ').append(verdict).append('=').append(verifier.getCount(verdict));
+                    }
+                    return stats.toString();
+                default:
+                    return "ERROR Unknown command " + command;
+            }
+        } catch (RuntimeException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    /**
+     * Usage: VerifierServer [--port 18600] [--threads n]
+     */
+    public static void main(String... args) throws IOException, InterruptedException {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[i + 1]);
+            } else {
+                System.out.println("Usage: VerifierServer [--port " + DEFAULT_PORT + "] [--threads n]");
+                System.exit(2);
+            }
+        }
+
+        VerifierServer server = new VerifierServer(new ShareVerifier(new ForkJoinPool(threads)), port);
+        server.start();
+        System.out.println(String.format("Verifying shares on %1$s with %2$s thread(s)", server.getAddress(), threads));
+        Thread.currentThread().join();
+    }
+}